@@ -62,11 +62,118 @@ dependencies {
     implementation("ai.djl.pytorch:pytorch-native-cpu:1.7.1")
     implementation("ai.djl.pytorch:pytorch-model-zoo:0.10.0")
 
+//    ONNX Runtime brings native libraries of all platforms, and ONNX export of the model is not published yet.
+//    So it is added to the plugin only when built with -PwithOnnxRuntime, see BackendType.isAvailable
+    val onnxRuntime = "com.microsoft.onnxruntime:onnxruntime:1.7.0"
+    if (project.hasProperty("withOnnxRuntime")) implementation(onnxRuntime) else compileOnly(onnxRuntime)
+
     implementation("com.dropbox.core:dropbox-core-sdk:3.1.5")
 
     implementation("com.flipkart.utils:javatuples:3.0")
 }
 
+// GPT2 merges are compiled into the binary table that is memory-mapped by BpeMergeTable.
+// Layout is described there. Slot function must be the same as BpeMergeTable.slotOf
+val bpeMergesDir = file("$buildDir/generated/bpeMerges")
+val compileBpeMerges by tasks.registering {
+    val mergesFile = file("src/main/resources/data/torchBERT/gpt2Merges.txt")
+    val tableFile = File(bpeMergesDir, "data/torchBERT/gpt2Merges.bin")
+    inputs.file(mergesFile)
+    outputs.dir(bpeMergesDir)
+    doLast {
+//        GPT2 byte encoder: printable bytes keep their code, all others are shifted after 255
+        val byteSymbols = CharArray(256)
+        var shifted = 256
+        for (b in 0 until 256) {
+            val printable = b in 33..126 || b in 161..172 || b in 174..255
+            byteSymbols[b] = if (printable) b.toChar() else (shifted++).toChar()
+        }
+        val ids = HashMap<String, Int>()
+        byteSymbols.forEachIndexed { b, symbol -> ids[symbol.toString()] = b }
+
+        val merges = mergesFile.readLines(Charsets.UTF_8).filter { it.isNotEmpty() }.map { it.split(" ") }
+        val capacity = Integer.highestOneBit(merges.size * 2 - 1) shl 1
+        val keys = LongArray(capacity) { -1L }
+        val ranks = IntArray(capacity)
+        val pairs = IntArray(merges.size * 2)
+        merges.forEachIndexed { rank, (left, right) ->
+            val leftId = ids.getValue(left)
+            val rightId = ids.getValue(right)
+            pairs[2 * rank] = leftId
+            pairs[2 * rank + 1] = rightId
+            ids.putIfAbsent(left + right, 256 + rank)
+
+            val key = (leftId.toLong() shl 32) or rightId.toLong()
+            val hash = (key xor (key ushr 32)).toInt() * -0x61c88647
+            var slot = (hash xor (hash ushr 16)) and (capacity - 1)
+            while (keys[slot] != -1L && keys[slot] != key) {
+                slot = (slot + 1) and (capacity - 1)
+            }
+            if (keys[slot] == -1L) {
+                keys[slot] = key
+                ranks[slot] = rank
+            }
+        }
+
+        tableFile.parentFile.mkdirs()
+        java.io.DataOutputStream(tableFile.outputStream().buffered()).use { out ->
+            out.writeInt(0x56444250)
+            out.writeInt(1)
+            out.writeInt(merges.size)
+            out.writeInt(capacity)
+            byteSymbols.forEach { out.writeChar(it.toInt()) }
+            pairs.forEach { out.writeInt(it) }
+            for (slot in 0 until capacity) {
+                out.writeLong(keys[slot])
+                out.writeInt(ranks[slot])
+            }
+        }
+    }
+}
+
+sourceSets {
+    main {
+        resources.srcDir(files(bpeMergesDir).builtBy(compileBpeMerges))
+    }
+}
+
+// JMH benchmarks of preprocessing and postprocessing over the corpus in src/test/resources/corpus
+// (it is shared with unit tests and comes with the test runtime classpath).
+// Run all of them with "./gradlew jmh", JMH arguments are given as -PjmhArgs="GPT2 -p length=LONG".
+// IntelliJ classes are taken from the test classpath, paths of IDE are put into the build directory
+val jmhVersion = "1.27"
+val jmhSourceSet = sourceSets.create("jmh") {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath +
+            sourceSets.test.get().compileClasspath
+    runtimeClasspath += output + compileClasspath + sourceSets.test.get().runtimeClasspath
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:$jmhVersion")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+}
+
+val jmhSandboxDir = file("$buildDir/jmh-sandbox")
+val jmhResultsFile = file("$buildDir/reports/jmh/results.json")
+val jmh by tasks.registering(JavaExec::class) {
+    group = "benchmark"
+    description = "Runs JMH benchmarks with GC profiler, results are written to $jmhResultsFile"
+    classpath = jmhSourceSet.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val jmhArgs = project.findProperty("jmhArgs")?.toString()?.split(" ")?.filter { it.isNotEmpty() }
+    args = listOf("-prof", "gc", "-rf", "json", "-rff", jmhResultsFile.path) + jmhArgs.orEmpty()
+//    Forked JVMs of JMH get the same arguments
+    jvmArgs = listOf(
+        "-Djava.awt.headless=true",
+        "-Didea.config.path=$jmhSandboxDir/config",
+        "-Didea.system.path=$jmhSandboxDir/system",
+        "-Didea.log.path=$jmhSandboxDir/log"
+    )
+    doFirst {
+        jmhResultsFile.parentFile.mkdirs()
+    }
+}
+
 intellij {
     pluginName = pluginName
     version = platformVersion
@@ -0,0 +1,139 @@
+package dynamic.type.inferences.benchmarks;
+
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.model.translator.FunctionInput;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Python functions for benchmarks, read from corpus/functions.py of test resources. Each top-level function becomes
+ * {@link FunctionInput} in the same way as {@link FunctionInput#fromPyFunction}: code starts from "def <name>",
+ * is cut to {@link GlobalProjectInstances#BERT_LIMITATION} symbols, and parameters are found in it.
+ * PSI is not available in benchmarks, so parameters are taken from the header of function by a simple parser.
+ */
+public final class BenchmarkCorpus {
+
+    /**
+     * Groups of functions by length of code, so results show how each stage grows with length
+     */
+    public enum Length {
+        SHORT(0, 200),
+        MEDIUM(200, 400),
+        LONG(400, Integer.MAX_VALUE);
+
+        private final int minLength;
+        private final int maxLength;
+
+        Length(int minLength, int maxLength) {
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+        }
+
+        boolean contains(String code) {
+            return code.length() >= minLength && code.length() < maxLength;
+        }
+    }
+
+    private static final String CORPUS = "/corpus/functions.py";
+    private static final Pattern NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Functions of corpus with given length, where
+     *
+     * @param length is a group of functions
+     * @return inputs in order of corpus
+     * @throws IOException if corpus cannot be read
+     */
+    public static List<FunctionInput> load(Length length) throws IOException {
+        List<FunctionInput> inputs = loadAll()
+                .stream()
+                .filter(input -> length.contains(input.getCode()))
+                .collect(Collectors.toList());
+        if (inputs.isEmpty())
+            throw new IllegalStateException("Corpus has no functions of length " + length);
+        return inputs;
+    }
+
+    /**
+     * @return all functions of corpus
+     * @throws IOException if corpus cannot be read
+     */
+    public static List<FunctionInput> loadAll() throws IOException {
+        List<FunctionInput> inputs = new ArrayList<>();
+        for (String function : readFunctions())
+            inputs.add(toInput(function));
+        return inputs;
+    }
+
+    private static List<String> readFunctions() throws IOException {
+        List<String> functions = new ArrayList<>();
+        StringBuilder current = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(BenchmarkCorpus.class.getResourceAsStream(CORPUS)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+//                Function ends at the next line without indentation: other function or comment
+                boolean topLevel = !line.isEmpty() && !Character.isWhitespace(line.charAt(0));
+                if (topLevel && current != null) {
+                    functions.add(current.toString().trim());
+                    current = null;
+                }
+                if (line.startsWith("def "))
+                    current = new StringBuilder();
+                if (current != null)
+                    current.append(line).append('\n');
+            }
+        }
+        if (current != null)
+            functions.add(current.toString().trim());
+        return functions;
+    }
+
+    private static FunctionInput toInput(String function) {
+        String code = function.substring(0, Math.min(GlobalProjectInstances.BERT_LIMITATION, function.length()));
+        int open = function.indexOf('(');
+        String functionName = function.substring("def ".length(), open).trim();
+        List<String> names = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+//        Parameters are separated by commas that are not inside of brackets of default values
+        int depth = 0;
+        int parameterStart = open + 1;
+        for (int i = open + 1; depth >= 0 && i < function.length(); i++) {
+            char c = function.charAt(i);
+            if (c == '(' || c == '[' || c == '{')
+                depth++;
+            else if (c == ')' || c == ']' || c == '}')
+                depth--;
+            if (depth < 0 || depth == 0 && c == ',') {
+                addParameter(function, parameterStart, i, names, starts);
+                parameterStart = i + 1;
+            }
+        }
+        return new FunctionInput(code, names, starts.stream().mapToInt(Integer::intValue).toArray(), functionName);
+    }
+
+    private static void addParameter(String function, int start, int end, List<String> names, List<Integer> starts) {
+//        Separators "*" and "/" have no name, "*args" and "**kwargs" have it after stars
+        Matcher matcher = NAME.matcher(function).region(start, end);
+        int nameStart = start;
+        while (nameStart < end
+                && (Character.isWhitespace(function.charAt(nameStart)) || function.charAt(nameStart) == '*'))
+            nameStart++;
+        if (matcher.find() && matcher.start() == nameStart) {
+            names.add(matcher.group());
+            starts.add(matcher.start());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dynamic.type.inferences.lookUpElement;
+
+import com.intellij.codeInsight.lookup.LookupElement;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation of completion items for predicted types from variables of project. Method removes suggested
+ * variables from the map, so each call gets a copy, as completion collects a new map each time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelLookUpElementBenchmark {
+
+    private static final String[] TYPES = {"int", "str", "float", "bool", "List[int]", "List[str]",
+            "Dict[str, Any]", "Optional[str]", "Tuple[int, int]", "bytes", "Any"};
+//    Predicted types as completion gives them: split from one string, so with spaces
+    private static final List<String> TOP_5_TYPES = Arrays.asList("str", " int", " List[str]", " None", " Path");
+
+    @Param({"100", "1000", "10000"})
+    public int variablesCount;
+
+    private Map<String, String> variables;
+    private final ModelLookUpElement modelLookUpElement = new ModelLookUpElement();
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        variables = new HashMap<>();
+        for (int i = 0; i < variablesCount; i++)
+            variables.put("project/package" + i % 10 + "/module" + i % 100 + "/function" + i % 500 + "/variable" + i,
+                    TYPES[random.nextInt(TYPES.length)]);
+    }
+
+    @Benchmark
+    public List<LookupElement> createTopNSuggestedVariablesTypes() {
+        return modelLookUpElement.createTopNSuggestedVariablesTypes(new HashMap<>(variables), TOP_5_TYPES);
+    }
+}
@@ -0,0 +1,54 @@
+package dynamic.type.inferences.model.runner;
+
+import ai.djl.modality.Classifications;
+import ai.djl.modality.Classifications.Classification;
+import dynamic.type.inferences.GlobalProjectInstances;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Combination of predictions of all parameters into top-5 types of function, as {@link TorchBert#predictOne}
+ * does after forward pass. Each parameter has probabilities of all ranks, as model returns them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AggregationBenchmark {
+
+    @Param({"1", "3", "6"})
+    public int parametersCount;
+
+    private Classifications[] predictions;
+
+    @Setup
+    public void setUp() {
+        List<String> ranks = GlobalProjectInstances.getRanksFromFile();
+        Random random = new Random(42);
+        predictions = new Classifications[parametersCount];
+        for (int i = 0; i < parametersCount; i++) {
+//            Softmax of random logits, so a few types have most of probability as in real output
+            double[] exponents = new double[ranks.size()];
+            double sum = 0;
+            for (int j = 0; j < exponents.length; j++) {
+                exponents[j] = Math.exp(random.nextGaussian() * 3);
+                sum += exponents[j];
+            }
+            List<Double> probabilities = new ArrayList<>(exponents.length);
+            for (double exponent : exponents)
+                probabilities.add(exponent / sum);
+            predictions[i] = new Classifications(ranks, probabilities);
+        }
+    }
+
+    @Benchmark
+    public List<Classification> combineTopK() {
+        return TorchBert.combineTopK(predictions);
+    }
+}
@@ -0,0 +1,46 @@
+package dynamic.type.inferences.model.runner.tokenizer;
+
+import dynamic.type.inferences.benchmarks.BenchmarkCorpus;
+import dynamic.type.inferences.model.runner.TorchBert;
+import dynamic.type.inferences.model.translator.FunctionInput;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Encoding of functions of corpus into vocabulary ids padded to the length bucket, as model takes them
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBertFullTokenizerBenchmark {
+
+    @Param({"SHORT", "MEDIUM", "LONG"})
+    public BenchmarkCorpus.Length length;
+
+    private List<String> codes;
+    private ModelBertFullTokenizer tokenizer;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        codes = BenchmarkCorpus.load(length)
+                .stream()
+                .map(FunctionInput::getCode)
+                .collect(Collectors.toList());
+        tokenizer = new ModelBertFullTokenizer(TorchBert.loadVocabulary());
+    }
+
+    @Benchmark
+    public EncodedTokens encodeIds() {
+        String code = codes.get(next);
+        next = (next + 1) % codes.size();
+        return tokenizer.encodeIds(code);
+    }
+}
@@ -0,0 +1,108 @@
+package dynamic.type.inferences.model.translator;
+
+import ai.djl.Model;
+import ai.djl.metric.Metrics;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.translate.TranslatorContext;
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.benchmarks.BenchmarkCorpus;
+import dynamic.type.inferences.model.runner.TorchBert;
+import dynamic.type.inferences.model.runner.tokenizer.ModelBertFullTokenizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-processing of functions of corpus without the model: tokenization, mask of parameters and input tensors.
+ * Tensors need an engine, so PyTorch native library is loaded, but the model is not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BertTranslatorBenchmark {
+
+    @Param({"SHORT", "MEDIUM", "LONG"})
+    public BenchmarkCorpus.Length length;
+
+    private List<FunctionInput> inputs;
+    private BertTranslator translator;
+    private NDManager manager;
+    private int next = 0;
+
+    /**
+     * The same context as predictor gives to translator, but without model
+     */
+    private static class BenchmarkContext implements TranslatorContext {
+        private final NDManager manager;
+        private final Map<String, Object> attachments = new HashMap<>();
+
+        BenchmarkContext(NDManager manager) {
+            this.manager = manager;
+        }
+
+        @Override
+        public Model getModel() {
+            return null;
+        }
+
+        @Override
+        public NDManager getNDManager() {
+            return manager;
+        }
+
+        @Override
+        public Metrics getMetrics() {
+            return null;
+        }
+
+        @Override
+        public Object getAttachment(String key) {
+            return attachments.get(key);
+        }
+
+        @Override
+        public void setAttachment(String key, Object value) {
+            attachments.put(key, value);
+        }
+
+        @Override
+        public void close() {
+            manager.close();
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        inputs = BenchmarkCorpus.load(length);
+        ModelBertFullTokenizer tokenizer = new ModelBertFullTokenizer(TorchBert.loadVocabulary());
+        translator = new BertTranslator(tokenizer, GlobalProjectInstances.getRanksFromFile());
+        manager = NDManager.newBaseManager();
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.close();
+    }
+
+    /**
+     * Tensors are released after each call, as predictor does after forward pass
+     *
+     * @return input of model
+     */
+    @Benchmark
+    public NDList processInput() {
+        FunctionInput input = inputs.get(next);
+        next = (next + 1) % inputs.size();
+        try (BenchmarkContext ctx = new BenchmarkContext(manager.newSubManager())) {
+            return translator.processInput(ctx, input);
+        }
+    }
+}
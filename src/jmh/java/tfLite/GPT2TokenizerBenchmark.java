@@ -0,0 +1,60 @@
+package tfLite;
+
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.benchmarks.BenchmarkCorpus;
+import dynamic.type.inferences.cache.BoundedConcurrentCache;
+import dynamic.type.inferences.model.translator.FunctionInput;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * GPT2 tokenization of functions of corpus. The plugin shares one tokenizer with a cache of merged pre-tokens,
+ * so the cache is warm in {@link #encode()}. {@link #encodeWithoutCache()} merges every pre-token again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GPT2TokenizerBenchmark {
+
+    @Param({"SHORT", "MEDIUM", "LONG"})
+    public BenchmarkCorpus.Length length;
+
+    private List<String> codes;
+    private GPT2Tokenizer tokenizer;
+    private GPT2Tokenizer tokenizerWithoutCache;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws IOException {
+        codes = BenchmarkCorpus.load(length)
+                .stream()
+                .map(FunctionInput::getCode)
+                .collect(Collectors.toList());
+        tokenizer = GlobalProjectInstances.getGpt2Tokenizer();
+        tokenizerWithoutCache = new GPT2Tokenizer(GlobalProjectInstances.getBpeMergeTable(),
+                new BoundedConcurrentCache<>(1));
+    }
+
+    @Benchmark
+    public List<String> encode() {
+        return tokenizer.encode(nextCode());
+    }
+
+    @Benchmark
+    public List<String> encodeWithoutCache() {
+        return tokenizerWithoutCache.encode(nextCode());
+    }
+
+    private String nextCode() {
+        String code = codes.get(next);
+        next = (next + 1) % codes.size();
+        return code;
+    }
+}
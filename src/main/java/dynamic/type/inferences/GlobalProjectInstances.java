@@ -3,14 +3,18 @@ package dynamic.type.inferences;
 import com.intellij.openapi.application.PathManager;
 import com.intellij.ui.components.JBList;
 import com.intellij.ui.components.JBScrollPane;
-import kotlin.Pair;
+import dynamic.type.inferences.cache.BoundedConcurrentCache;
+import dynamic.type.inferences.model.runner.tokenizer.BpeMergeTable;
 import org.jetbrains.annotations.NotNull;
+import tfLite.GPT2Tokenizer;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,22 +27,50 @@ public final class GlobalProjectInstances {
 
     public static final String MODEL_NAME = "/eeee.pt";
     private static final String MODEL_PATH = PathManager.getConfigPath() + MODEL_NAME;
+//    Must be increased when model or its ranks change, so predictions of the old model stored on disk are not used.
+//    The same when translators change what model gets for a function: tokens, attention or parameters masks,
+//    padding. Version 2: paddings are masked out of attention
+    public static final int MODEL_VERSION = 2;
 //    The path below is done so because of Windows case when DJL is not able to find path as string.
 //    For checking if file exists or showing it in settings we replace first occurrence of "file:/"
 //    Also, path can contain whitespaces, which dropBox loader cannot handle
 //    (or this is output stream issue, which we did not manage to solve)
     public static final String MODEL_PATH_FOR_WORK =
             new File(PathManager.getAbsolutePath(MODEL_PATH)).toURI().getPath().replaceAll(" ", "");
+//    ONNX export of the same model for ONNX Runtime backend. ONNX Runtime takes a plain file path, not URI.
+//    The export is not published in the DropBox yet, so it is never downloaded, see BackendType#isAvailable
+    public static final String ONNX_MODEL_NAME = "/eeee.onnx";
+    public static final String ONNX_MODEL_PATH = PathManager.getAbsolutePath(PathManager.getConfigPath() + ONNX_MODEL_NAME);
     public static final Integer MAX_VALUES_TO_SHOW = 5;
     public static final Integer BERT_LIMITATION = 512;
+//    Inputs are padded to the nearest of these lengths. Shorter buckets (64, 128, 256) would be much cheaper,
+//    because most functions are short and cost of attention grows quadratically with length. But top-5 types
+//    on them are not yet shown to agree with inputs padded to BERT_LIMITATION, so only it is used until then.
+//    Enabling them must increase MODEL_VERSION
+    public static final int[] SEQUENCE_BUCKETS = {512};
+//    Maximum number of functions predicted in one forward pass
+    public static final Integer MAX_BATCH_SIZE = 8;
+    public static final Integer BPE_CACHE_SIZE = 8192;
+//    Number of functions whose predictions are kept in memory
+    public static final Integer PREDICTION_CACHE_SIZE = 1024;
+//    Size of prediction store on disk after which the oldest predictions are removed
+    public static final long PREDICTION_STORE_MAX_BYTES = 32L << 20;
+//    Latest requests for average latency in the status bar and requests that are shown there as slow
+    public static final int RECENT_REQUESTS_WINDOW = 50;
+    public static final int SLOW_REQUESTS_TO_KEEP = 20;
+    public static final long SLOW_REQUEST_MILLIS = 300;
     @NotNull
-    public static final URL URL_VOCAB = Objects.requireNonNull(GlobalProjectInstances.class.getClassLoader().getResource("/data/torchBERT/vocab.txt"));
+    public static final URL URL_VOCAB = Objects.requireNonNull(GlobalProjectInstances.class.getResource("/data/torchBERT/vocab.txt"));
     @NotNull
-    private static final URL URL_RANKS = Objects.requireNonNull(GlobalProjectInstances.class.getClassLoader().getResource("/data/torchBERT/modelRanks.txt"));
+    private static final URL URL_RANKS = Objects.requireNonNull(GlobalProjectInstances.class.getResource("/data/torchBERT/modelRanks.txt"));
     @NotNull
-    public static final URL URL_TOKEN = Objects.requireNonNull(GlobalProjectInstances.class.getClassLoader().getResource("/data/torchBERT/token"));
+    public static final URL URL_TOKEN = Objects.requireNonNull(GlobalProjectInstances.class.getResource("/data/torchBERT/token"));
     @NotNull
-    private static final URL URL_BPE_RANKS = Objects.requireNonNull(GlobalProjectInstances.class.getClassLoader().getResource("/data/torchBERT/gpt2Merges.txt"));
+    private static final URL URL_BPE_MERGES = Objects.requireNonNull(GlobalProjectInstances.class.getResource("/data/torchBERT/gpt2Merges.bin"));
+//    Memory mapping is possible only for files, so table is extracted from plugin jar here
+    private static final Path BPE_MERGES_PATH = Paths.get(PathManager.getSystemPath(), "VaDima", "gpt2Merges.bin");
+//    Predictions that survive IDE restart
+    public static final Path PREDICTION_STORE_PATH = Paths.get(PathManager.getSystemPath(), "VaDima", "predictions");
 
     public static final String NEW_LINE = "<br/>";
     public static final String BOLD_START = "<b>";
@@ -47,20 +79,64 @@ public final class GlobalProjectInstances {
     public static final String CLOSE_BRACKET = ")";
     public static final String SPACE_DEF_SPACE = " def ";
 
-    public static Map<Pair<String, String>, Integer> loadBpeRanks() throws IOException {
-        Map<Pair<String, String>, Integer> map = new HashMap<>();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(URL_BPE_RANKS.openStream()));
-        String line;
-        int iter = 0;
-        while ((line = reader.readLine()) != null) {
-            String[] values = line.split(" ");
-            Pair<String, String> bpePair = new Pair<>(values[0], values[1]);
-            map.put(bpePair, iter);
-            iter++;
+    private static volatile BpeMergeTable bpeMergeTable;
+    private static volatile GPT2Tokenizer gpt2Tokenizer;
+
+    /**
+     * Merge table for GPT2 tokenizer. It is compiled during build and memory-mapped once for the whole application.
+     *
+     * @return shared instance of {@link BpeMergeTable}
+     * @throws IOException if table is not found or cannot be mapped
+     */
+    public static BpeMergeTable getBpeMergeTable() throws IOException {
+        BpeMergeTable table = bpeMergeTable;
+        if (table == null) {
+            synchronized (GlobalProjectInstances.class) {
+                table = bpeMergeTable;
+                if (table == null) {
+                    table = BpeMergeTable.load(URL_BPE_MERGES, BPE_MERGES_PATH);
+                    bpeMergeTable = table;
+                }
+            }
         }
-        return map;
+        return table;
     }
 
+    /**
+     * GPT2 tokenizer shared by all its users. So, all of them share the cache of already merged words.
+     * Hit rate of the cache can be found in {@link GPT2Tokenizer#getBpeCache()}.
+     *
+     * @return shared instance of {@link GPT2Tokenizer}
+     * @throws IOException if merge table cannot be loaded
+     */
+    public static GPT2Tokenizer getGpt2Tokenizer() throws IOException {
+        GPT2Tokenizer tokenizer = gpt2Tokenizer;
+        if (tokenizer == null) {
+            synchronized (GlobalProjectInstances.class) {
+                tokenizer = gpt2Tokenizer;
+                if (tokenizer == null) {
+                    tokenizer = new GPT2Tokenizer(getBpeMergeTable(), new BoundedConcurrentCache<>(BPE_CACHE_SIZE));
+                    gpt2Tokenizer = tokenizer;
+                }
+            }
+        }
+        return tokenizer;
+    }
+
+    /**
+     * Length of model input for given number of tokens, where
+     *
+     * @param length is a number of tokens including special ones
+     * @return the smallest bucket from {@link #SEQUENCE_BUCKETS} that fits all tokens.
+     * If there is no such, then length itself
+     */
+    public static int getBucketLength(int length) {
+        for (int bucket : SEQUENCE_BUCKETS) {
+            if (length <= bucket)
+                return bucket;
+        }
+        return length;
+    }
 
     /**
      * Method for reading all ranks - recognizable by model variable types.
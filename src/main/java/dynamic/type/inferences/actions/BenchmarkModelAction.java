@@ -0,0 +1,63 @@
+package dynamic.type.inferences.actions;
+
+import ai.djl.translate.TranslateException;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.model.runner.TorchBert;
+import dynamic.type.inferences.notification.VaDimaNotification;
+import dynamic.type.inferences.startUpActivity.ModelStartUpActivity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Tools menu action that measures latency of model on CPU for each input length bucket
+ * and shows results in a notification.
+ */
+public class BenchmarkModelAction extends AnAction {
+
+    private static final int ITERATIONS = 20;
+
+    private final VaDimaNotification notification = new VaDimaNotification();
+
+    /**
+     * Runs benchmark in background, because it takes several seconds
+     *
+     * @param event is an event of action
+     */
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        TorchBert torchBert = ModelStartUpActivity.getTorchBertInstance();
+        if (!torchBert.isInitialized()) {
+            Notifications.Bus.notify(notification.createNotLoadedNotification(), event.getProject());
+            return;
+        }
+        ProgressManager.getInstance().run(
+                new Task.Backgroundable(event.getProject(), "VaDima benchmark") {
+                    public void run(@NotNull ProgressIndicator indicator) {
+                        indicator.setIndeterminate(true);
+                        indicator.setText("Measuring model latency...");
+                        try {
+                            Map<Integer, Double> latencies = torchBert.benchmarkBuckets(ITERATIONS);
+                            StringBuilder content = new StringBuilder();
+                            latencies.forEach((bucket, milliseconds) -> content
+                                    .append(GlobalProjectInstances.BOLD_START)
+                                    .append(bucket)
+                                    .append(" tokens: ")
+                                    .append(GlobalProjectInstances.BOLD_END)
+                                    .append(String.format("%.1f ms", milliseconds))
+                                    .append(GlobalProjectInstances.NEW_LINE));
+                            Notifications.Bus.notify(
+                                    notification.createBenchmarkNotification(content.toString()), getProject());
+                        } catch (TranslateException ignored) {
+                            Notifications.Bus.notify(notification.createErrorNotification(), getProject());
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,94 @@
+package dynamic.type.inferences.actions;
+
+import ai.djl.translate.TranslateException;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.model.backend.BackendBenchmark;
+import dynamic.type.inferences.model.backend.BackendType;
+import dynamic.type.inferences.model.runner.TorchBert;
+import dynamic.type.inferences.notification.VaDimaNotification;
+import dynamic.type.inferences.startUpActivity.ModelStartUpActivity;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/**
+ * Tools menu action that loads each inference backend which model is downloaded and shows
+ * its startup time, latency for each input length bucket and resident memory in a notification.
+ * It is shown only if there is more than one available backend, otherwise there is nothing to compare.
+ */
+public class CompareBackendsAction extends AnAction {
+
+    private static final int ITERATIONS = 20;
+
+    private final VaDimaNotification notification = new VaDimaNotification();
+
+    /**
+     * Hides action if only PyTorch backend is available, where
+     *
+     * @param event is an event of action
+     */
+    @Override
+    public void update(@NotNull AnActionEvent event) {
+        event.getPresentation().setEnabledAndVisible(BackendType.availableValues().length > 1);
+    }
+
+    /**
+     * Runs comparison in background, because each backend loads its model
+     *
+     * @param event is an event of action
+     */
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        TorchBert torchBert = ModelStartUpActivity.getTorchBertInstance();
+        if (!torchBert.isInitialized()) {
+            Notifications.Bus.notify(notification.createNotLoadedNotification(), event.getProject());
+            return;
+        }
+        ProgressManager.getInstance().run(
+                new Task.Backgroundable(event.getProject(), "VaDima backends comparison") {
+                    public void run(@NotNull ProgressIndicator indicator) {
+                        indicator.setIndeterminate(true);
+                        indicator.setText("Measuring inference backends...");
+                        try {
+                            Map<BackendType, BackendBenchmark> results = torchBert.compareBackends(ITERATIONS);
+                            StringBuilder content = new StringBuilder();
+                            results.values().forEach(result -> appendResult(content, result));
+                            Notifications.Bus.notify(notification.createBenchmarkNotification(
+                                    "Inference backends", content.toString()), getProject());
+                        } catch (TranslateException ignored) {
+                            Notifications.Bus.notify(notification.createErrorNotification(), getProject());
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Adds results of one backend to notification text, where
+     *
+     * @param content is a text of notification
+     * @param result  are measurements of backend
+     */
+    private static void appendResult(StringBuilder content, BackendBenchmark result) {
+        content.append(GlobalProjectInstances.BOLD_START)
+                .append(result.getType().getDisplayName())
+                .append(GlobalProjectInstances.BOLD_END)
+                .append(GlobalProjectInstances.NEW_LINE)
+                .append(String.format("startup: %d ms, first prediction: %.1f ms",
+                        result.getStartupMillis(), result.getFirstPredictionMillis()))
+                .append(GlobalProjectInstances.NEW_LINE);
+        if (result.getResidentBytes() >= 0)
+            content.append(String.format("resident memory: %+d MB", result.getResidentBytes() >> 20))
+                    .append(GlobalProjectInstances.NEW_LINE);
+        result.getLatencies().forEach((bucket, milliseconds) -> content
+                .append(bucket)
+                .append(" tokens: ")
+                .append(String.format("%.1f ms", milliseconds))
+                .append(GlobalProjectInstances.NEW_LINE));
+    }
+}
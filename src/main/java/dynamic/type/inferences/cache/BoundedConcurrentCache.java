@@ -0,0 +1,183 @@
+package dynamic.type.inferences.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Thread-safe LRU cache with limited number of entries.
+ * <p>
+ * Entries are split into segments by key hash. Each segment is an access-ordered {@link LinkedHashMap}
+ * with its own lock, so threads that work with different keys rarely wait for each other.
+ * The oldest entry of the segment is removed when the segment is full.
+ * <p>
+ * Hits and misses are counted for choosing the size of cache.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values. Values are shared between all callers, so they should not be modified
+ */
+public class BoundedConcurrentCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creation of cache, where
+     *
+     * @param maxSize is maximum number of stored entries
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedConcurrentCache(int maxSize) {
+        this.maxSize = maxSize;
+        int segmentsCount = Math.max(1, Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize / MAX_SEGMENTS)));
+        segments = new Segment[segmentsCount];
+        for (int i = 0; i < segmentsCount; i++)
+            segments[i] = new Segment<>(Math.max(1, maxSize / segmentsCount));
+    }
+
+    /**
+     * @param key is the key of value
+     * @return cached value or null if there is no such
+     */
+    public V get(K key) {
+        V value = segmentFor(key).get(key);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    /**
+     * Puts value to the cache. The least recently used entry is removed if there is no place.
+     *
+     * @param key   is the key of value
+     * @param value value to store
+     */
+    public void put(K key, V value) {
+        segmentFor(key).put(key, value);
+    }
+
+    /**
+     * Returns cached value or computes and stores a new one. Computation is done without any lock,
+     * so two threads may compute the same value at the same time. Both results are equal, so this is fine.
+     *
+     * @param key      is the key of value
+     * @param function computes value for the key
+     * @return cached or computed value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> function) {
+        V value = get(key);
+        if (value == null) {
+            value = function.apply(key);
+            if (value != null)
+                put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @param key is the key of value to remove
+     */
+    public void invalidate(K key) {
+        segmentFor(key).remove(key);
+    }
+
+    /**
+     * Removes all entries. Statistics are kept.
+     */
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments)
+            segment.clear();
+    }
+
+    /**
+     * @return current number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    /**
+     * @return maximum number of entries
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of successful lookups
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that did not find a value
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return part of successful lookups from 0 to 1. If there were no lookups, then 0
+     */
+    public double getHitRate() {
+        long hitsCount = getHits();
+        long total = hitsCount + getMisses();
+        return total == 0 ? 0.0 : (double) hitsCount / total;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+
+    /**
+     * Access-ordered map that removes the eldest entry when it is full. All methods are guarded by map itself.
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        public synchronized V get(Object key) {
+            return super.get(key);
+        }
+
+        @Override
+        public synchronized V put(K key, V value) {
+            return super.put(key, value);
+        }
+
+        @Override
+        public synchronized V remove(Object key) {
+            return super.remove(key);
+        }
+
+        @Override
+        public synchronized void clear() {
+            super.clear();
+        }
+
+        @Override
+        public synchronized int size() {
+            return super.size();
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
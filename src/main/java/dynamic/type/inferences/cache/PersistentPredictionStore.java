@@ -0,0 +1,442 @@
+package dynamic.type.inferences.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Prediction cache on disk, so functions predicted before IDE restart are not predicted again.
+ * <p>
+ * Predictions are appended to a log file and never changed in place. Only offsets of records are kept in memory,
+ * records themselves are read from memory-mapped file without reading it into heap.
+ * Records of other model versions and repeated keys are garbage. When there is too much garbage
+ * or file is too big, live records are copied in background into the next file (generation) and the old one is deleted.
+ * Generations are used instead of renaming, because mapped file cannot be replaced on Windows.
+ * <p>
+ * Binary layout (big-endian):
+ * magic, format version, then records: payload length, CRC32 of payload, payload.
+ * Payload is model version, 128 bits of {@link PredictionKey}, number of variants
+ * and (UTF-8 length, UTF-8 bytes of name, probability) for each variant.
+ * A record that is cut or broken (IDE was killed during write) ends the log, everything after it is dropped.
+ */
+public class PersistentPredictionStore implements AutoCloseable {
+
+    public static final int MAGIC = 0x56445053;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final String FILE_PREFIX = "predictions.";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int FILE_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int PAYLOAD_HEADER_SIZE = Integer.BYTES + 2 * Long.BYTES + Byte.BYTES;
+//    Compaction of small files is not worth it
+    private static final long MIN_COMPACTION_BYTES = 1 << 20;
+
+    private final Path directory;
+    private final int modelVersion;
+    private final long maxBytes;
+    private final Executor compactionExecutor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final Object writeLock = new Object();
+
+    private volatile Generation generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    /**
+     * Opens the store, where
+     *
+     * @param directory          is a directory of store files. It is created if there is no such
+     * @param modelVersion       is a version of model. Records of other versions are not returned
+     * @param maxBytes           is a size of file after which old records are removed by compaction
+     * @param compactionExecutor runs compaction in background
+     * @throws IOException if store cannot be opened
+     */
+    public PersistentPredictionStore(Path directory, int modelVersion, long maxBytes, Executor compactionExecutor)
+            throws IOException {
+        this.directory = directory;
+        this.modelVersion = modelVersion;
+        this.maxBytes = maxBytes;
+        this.compactionExecutor = compactionExecutor;
+        Files.createDirectories(directory);
+
+//        The newest generation is used, the rest are left from compactions that could not delete them
+        long latest = -1;
+        List<Path> oldFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                long number = generationOf(file);
+                if (number > latest) {
+                    if (latest >= 0)
+                        oldFiles.add(fileOf(latest));
+                    latest = number;
+                } else {
+                    oldFiles.add(file);
+                }
+            }
+        }
+        for (Path file : oldFiles)
+            Files.deleteIfExists(file);
+        generation = Generation.open(fileOf(Math.max(0, latest)), Math.max(0, latest), modelVersion);
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * @param key is a key of function
+     * @return prediction stored for current model version or null if there is no such
+     */
+    public TopKPrediction get(PredictionKey key) {
+        Generation current = generation;
+        Integer offset = current.index.get(key);
+        if (offset == null) {
+            misses.increment();
+            return null;
+        }
+        try {
+            TopKPrediction prediction = current.read(offset);
+            hits.increment();
+            return prediction;
+        } catch (IOException e) {
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Appends prediction to the store, where
+     *
+     * @param key        is a key of function
+     * @param prediction is a prediction to store
+     * @throws IOException if prediction cannot be written
+     */
+    public void put(PredictionKey key, TopKPrediction prediction) throws IOException {
+        ByteBuffer record = encode(modelVersion, key, prediction);
+        synchronized (writeLock) {
+            generation.append(key, record);
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * @return number of stored predictions of current model version
+     */
+    public int size() {
+        return generation.index.size();
+    }
+
+    /**
+     * @return current size of file in bytes
+     */
+    public long getFileBytes() {
+        return generation.fileSize;
+    }
+
+    /**
+     * @return number of successful lookups
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that did not find a prediction
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of finished compactions
+     */
+    public long getCompactionsCount() {
+        return compactions.sum();
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        Generation current = generation;
+        boolean tooMuchGarbage = current.fileSize > MIN_COMPACTION_BYTES
+                && current.garbageBytes > current.fileSize / 2;
+        if ((tooMuchGarbage || current.fileSize > maxBytes) && compactionScheduled.compareAndSet(false, true)) {
+            compactionExecutor.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException ignored) {
+//                    Old generation is still fine, compaction will be tried after the next write
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Copies live records into the next generation. If file is too big, only the newest records are copied,
+     * so that the new file takes no more than half of maximum size. Readers are not blocked:
+     * they use the old generation until the new one is ready.
+     *
+     * @throws IOException if new generation cannot be written
+     */
+    public void compact() throws IOException {
+        synchronized (writeLock) {
+            Generation old = generation;
+            List<Map.Entry<PredictionKey, Integer>> records = new ArrayList<>(old.index.entrySet());
+//            The newest records are the most likely to be needed again
+            records.sort(Map.Entry.<PredictionKey, Integer>comparingByValue().reversed());
+
+            long number = old.number + 1;
+            Path temp = directory.resolve(FILE_PREFIX + number + TEMP_SUFFIX);
+            ByteBuffer mapped = old.mapped(old.fileSize);
+            long size = FILE_HEADER_SIZE;
+            List<ByteBuffer> live = new ArrayList<>(records.size());
+            for (Map.Entry<PredictionKey, Integer> record : records) {
+                int offset = record.getValue();
+                int length = RECORD_HEADER_SIZE + mapped.getInt(offset);
+                if (size + length > maxBytes / 2)
+                    break;
+                ByteBuffer slice = mapped.duplicate();
+                slice.position(offset).limit(offset + length);
+                live.add(slice);
+                size += length;
+            }
+//            Written in the original order, so the log stays ordered by age
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, fileHeader());
+                for (int i = live.size() - 1; i >= 0; i--)
+                    writeFully(channel, live.get(i));
+                channel.force(true);
+            }
+            Path file = fileOf(number);
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            generation = Generation.open(file, number, modelVersion);
+            old.close();
+            try {
+                Files.deleteIfExists(old.file);
+            } catch (IOException ignored) {
+//                File is still mapped (Windows), it is deleted on the next start
+            }
+            compactions.increment();
+        }
+    }
+
+    /**
+     * Closes the file. Store must not be used after that.
+     */
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            generation.close();
+        }
+    }
+
+    private Path fileOf(long number) {
+        return directory.resolve(FILE_PREFIX + number + FILE_SUFFIX);
+    }
+
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(FILE_SUFFIX))
+            return -1;
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static ByteBuffer fileHeader() {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        return header;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static ByteBuffer encode(int modelVersion, PredictionKey key, TopKPrediction prediction) {
+        String[] names = prediction.getClassNames();
+        double[] probabilities = prediction.getProbabilities();
+        byte[][] encodedNames = new byte[names.length][];
+        int payloadLength = PAYLOAD_HEADER_SIZE;
+        for (int i = 0; i < names.length; i++) {
+            encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            payloadLength += Short.BYTES + encodedNames[i].length + Double.BYTES;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payloadLength);
+        record.putInt(payloadLength).putInt(0)
+                .putInt(modelVersion).putLong(key.getHigh()).putLong(key.getLow()).put((byte) names.length);
+        for (int i = 0; i < names.length; i++) {
+            record.putShort((short) encodedNames[i].length).put(encodedNames[i]).putDouble(probabilities[i]);
+        }
+        record.putInt(Integer.BYTES, crcOf(record, RECORD_HEADER_SIZE, payloadLength));
+        record.flip();
+        return record;
+    }
+
+    private static int crcOf(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(offset).limit(offset + length);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * One store file with offsets of its live records
+     */
+    private static class Generation {
+        private final Path file;
+        private final long number;
+        private final FileChannel channel;
+        private final Map<PredictionKey, Integer> index = new ConcurrentHashMap<>();
+        private volatile MappedByteBuffer mapped;
+        private volatile long fileSize;
+        private volatile long garbageBytes;
+
+        private Generation(Path file, long number, FileChannel channel) {
+            this.file = file;
+            this.number = number;
+            this.channel = channel;
+        }
+
+        static Generation open(Path file, long number, int modelVersion) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Generation generation = new Generation(file, number, channel);
+            try {
+                generation.load(modelVersion);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            return generation;
+        }
+
+        private void load(int modelVersion) throws IOException {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Prediction store is too big: " + file);
+            ByteBuffer buffer = size >= FILE_HEADER_SIZE
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                    : ByteBuffer.allocate(0);
+            if (size < FILE_HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+//                New file or file of unknown format: start from scratch
+                channel.truncate(0);
+                writeFully(channel.position(0), fileHeader());
+                fileSize = FILE_HEADER_SIZE;
+                return;
+            }
+            int offset = FILE_HEADER_SIZE;
+            long garbage = 0;
+            while (offset + RECORD_HEADER_SIZE + PAYLOAD_HEADER_SIZE <= size) {
+                int payloadLength = buffer.getInt(offset);
+                if (payloadLength < PAYLOAD_HEADER_SIZE || offset + RECORD_HEADER_SIZE + (long) payloadLength > size
+                        || buffer.getInt(offset + Integer.BYTES) != crcOf(buffer, offset + RECORD_HEADER_SIZE, payloadLength))
+                    break;
+                int payload = offset + RECORD_HEADER_SIZE;
+                int recordLength = RECORD_HEADER_SIZE + payloadLength;
+                if (buffer.getInt(payload) == modelVersion) {
+                    PredictionKey key = new PredictionKey(buffer.getLong(payload + Integer.BYTES),
+                            buffer.getLong(payload + Integer.BYTES + Long.BYTES));
+                    Integer previous = index.put(key, offset);
+                    if (previous != null)
+                        garbage += RECORD_HEADER_SIZE + buffer.getInt(previous);
+                } else {
+                    garbage += recordLength;
+                }
+                offset += recordLength;
+            }
+//            Broken tail is dropped, so new records follow the last correct one
+            if (offset < size)
+                channel.truncate(offset);
+            fileSize = offset;
+            garbageBytes = garbage;
+            mapped = buffer instanceof MappedByteBuffer && offset == size ? (MappedByteBuffer) buffer : null;
+        }
+
+        void append(PredictionKey key, ByteBuffer record) throws IOException {
+            long offset = fileSize;
+            int length = record.remaining();
+            if (offset + length > Integer.MAX_VALUE)
+                throw new IOException("Prediction store is full: " + file);
+            long position = offset;
+            while (record.hasRemaining())
+                position += channel.write(record, position);
+            fileSize = offset + length;
+            Integer previous = index.put(key, (int) offset);
+            if (previous != null)
+                garbageBytes += RECORD_HEADER_SIZE + mapped(offset).getInt(previous);
+        }
+
+        TopKPrediction read(int offset) throws IOException {
+            ByteBuffer buffer = mapped(offset + RECORD_HEADER_SIZE + PAYLOAD_HEADER_SIZE);
+            int end = offset + RECORD_HEADER_SIZE + buffer.getInt(offset);
+            buffer = mapped(end);
+            int position = offset + RECORD_HEADER_SIZE + PAYLOAD_HEADER_SIZE - Byte.BYTES;
+            int count = buffer.get(position++);
+            String[] names = new String[count];
+            double[] probabilities = new double[count];
+            ByteBuffer view = buffer.duplicate();
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getShort(position);
+                position += Short.BYTES;
+                view.limit(position + length).position(position);
+                names[i] = StandardCharsets.UTF_8.decode(view).toString();
+                position += length;
+                probabilities[i] = buffer.getDouble(position);
+                position += Double.BYTES;
+            }
+            return new TopKPrediction(names, probabilities);
+        }
+
+        /**
+         * File grows after mapping, so it is mapped again when a record after the end of mapping is needed
+         *
+         * @param end is the end of needed region
+         * @return mapping that covers the region
+         */
+        MappedByteBuffer mapped(long end) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || current.capacity() < end) {
+                synchronized (this) {
+                    current = mapped;
+                    if (current == null || current.capacity() < end) {
+                        current = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+                        if (current.capacity() < end)
+                            throw new IOException("Record is out of prediction store: " + file);
+                        mapped = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dynamic.type.inferences.cache;
+
+import dynamic.type.inferences.model.translator.FunctionInput;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content address of prediction: SHA-256 of everything that model sees - prepared code of function,
+ * names of parameters and their positions. Only the first 128 bits of hash are kept.
+ * <p>
+ * When text of function changes, its key changes as well, so an old prediction is never returned
+ * for a new text. Old entries are simply not used anymore and are removed by LRU.
+ * <p>
+ * Key has nothing about batch or padding of the input, so it is valid only while prediction does not depend
+ * on them: paddings must have 0 in attention mask. If model input starts to depend on something else,
+ * that must become a part of the key.
+ */
+public final class PredictionKey {
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+//            Every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final long high;
+    private final long low;
+
+    /**
+     * Simple constructor, where
+     *
+     * @param high is the first 64 bits of hash
+     * @param low  is the next 64 bits of hash
+     */
+    public PredictionKey(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Key of function input, where
+     *
+     * @param input is a function with its parameters
+     * @return key that is equal for equal inputs
+     */
+    public static PredictionKey of(FunctionInput input) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        digest.update(input.getCode().getBytes(StandardCharsets.UTF_8));
+//        Separators make "ab" + "c" differ from "a" + "bc"
+        for (String name : input.getParameterNames()) {
+            digest.update((byte) 0);
+            digest.update(name.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteBuffer starts = ByteBuffer.allocate(Integer.BYTES * input.getParametersCount());
+        for (int start : input.getParameterStarts())
+            starts.putInt(start);
+        digest.update((byte) 0);
+        digest.update(starts.array());
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new PredictionKey(hash.getLong(), hash.getLong());
+    }
+
+    /**
+     * @return the first 64 bits of hash
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * @return the next 64 bits of hash
+     */
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof PredictionKey))
+            return false;
+        PredictionKey other = (PredictionKey) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+//        Bits of hash are already random
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,87 @@
+package dynamic.type.inferences.cache;
+
+import ai.djl.modality.Classifications;
+import ai.djl.modality.Classifications.Classification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact form of combined prediction for a function: top-k type variants and their probabilities.
+ * It is what is kept in cache instead of full {@link Classifications} of every parameter.
+ * Instances are immutable.
+ */
+public final class TopKPrediction {
+
+    private final String[] classNames;
+    private final double[] probabilities;
+
+    /**
+     * Simple constructor, where
+     *
+     * @param classNames    are type variants from the most probable
+     * @param probabilities are their probabilities, one for each variant
+     */
+    public TopKPrediction(String[] classNames, double[] probabilities) {
+        if (classNames.length != probabilities.length)
+            throw new IllegalArgumentException("Every variant should have its probability");
+        this.classNames = classNames.clone();
+        this.probabilities = probabilities.clone();
+    }
+
+    /**
+     * Compact copy of prediction, where
+     *
+     * @param classifications is a prediction as TorchBert returns it
+     * @return the same variants in compact form
+     */
+    public static TopKPrediction of(List<Classification> classifications) {
+        String[] names = new String[classifications.size()];
+        double[] probabilities = new double[classifications.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = classifications.get(i).getClassName();
+            probabilities[i] = classifications.get(i).getProbability();
+        }
+        return new TopKPrediction(names, probabilities);
+    }
+
+    /**
+     * @return new list of classifications in the same order as they were given
+     */
+    public List<Classification> toClassifications() {
+        List<Classification> classifications = new ArrayList<>(classNames.length);
+        for (int i = 0; i < classNames.length; i++)
+            classifications.add(new Classification(classNames[i], probabilities[i]));
+        return classifications;
+    }
+
+    /**
+     * @return type variants from the most probable
+     */
+    public String[] getClassNames() {
+        return classNames.clone();
+    }
+
+    /**
+     * @return probabilities of variants
+     */
+    public double[] getProbabilities() {
+        return probabilities.clone();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof TopKPrediction))
+            return false;
+        TopKPrediction other = (TopKPrediction) o;
+        return Arrays.equals(classNames, other.classNames) && Arrays.equals(probabilities, other.probabilities);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(classNames) + Arrays.hashCode(probabilities);
+    }
+}
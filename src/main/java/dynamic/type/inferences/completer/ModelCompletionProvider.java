@@ -25,7 +25,9 @@ import com.jetbrains.python.psi.types.PyCallableType;
 import com.jetbrains.python.psi.types.TypeEvalContext;
 import dynamic.type.inferences.GlobalProjectInstances;
 import dynamic.type.inferences.lookUpElement.ModelLookUpElement;
+import dynamic.type.inferences.metrics.events.VariableCollectionEvent;
 import dynamic.type.inferences.model.loader.BertModelLoader;
+import dynamic.type.inferences.model.runner.LatestPrediction;
 import dynamic.type.inferences.model.runner.TorchBert;
 import dynamic.type.inferences.notification.VaDimaNotification;
 import dynamic.type.inferences.startUpActivity.ModelStartUpActivity;
@@ -40,6 +42,7 @@ import java.util.stream.Collectors;
  * Main class for providing type hints. In a default way extends basic Completion Provider
  * <p>
  * Average model prediction is takes 1-2 secs, that is why default completions are passed first.
+ * Prediction itself runs on a separate executor and is abandoned as soon as completion is cancelled.
  * The next suggestions occur in a next way:
  * Firstly, we predict top-5 suggestions for each variable of function.
  * Secondly, we find from default list suitable variable. For each type are taken 2 variables.
@@ -52,6 +55,8 @@ public class ModelCompletionProvider extends CompletionProvider<CompletionParame
 
     private final Map<String, PyElement> allVariablesMap = new HashMap<>();
     private final TorchBert torchBert = ModelStartUpActivity.getTorchBertInstance();
+//    Completion is restarted on each typed symbol, so only the latest prediction is needed
+    private final LatestPrediction prediction = new LatestPrediction(torchBert);
     private final Object sharedObject = new Object();
 
     /**
@@ -216,8 +221,9 @@ public class ModelCompletionProvider extends CompletionProvider<CompletionParame
 //                                    Prepare to add elements
                                     ModelLookUpElement modelLookUpElement = new ModelLookUpElement();
                                     try {
-//                                        Predict variables and define current parameter position
-                                        List<Classification> predicts = torchBert.predictOne(pyFunction);
+//                                        Predict variables and define current parameter position.
+//                                        Prediction runs in background and is cancelled when user continues typing
+                                        List<Classification> predicts = prediction.predict(pyFunction);
                                         PyArgumentList argumentList = call.getArgumentList();
                                         if (predicts != null && argumentList != null) {
                                             int argPosition = argumentList.getArguments().length - 1;
@@ -280,10 +286,19 @@ public class ModelCompletionProvider extends CompletionProvider<CompletionParame
      */
     private void getData(Project project) {
         if (!project.isDisposed()) {
+            VariableCollectionEvent event = new VariableCollectionEvent();
+            event.begin();
+            ModelContentIterator iterator = new ModelContentIterator();
             ProjectFileIndex
                     .SERVICE
                     .getInstance(project)
-                    .iterateContent(new ModelContentIterator());
+                    .iterateContent(iterator);
+            event.end();
+            if (event.shouldCommit()) {
+                event.filesCount = iterator.filesCount;
+                event.variablesCount = allVariablesMap.size();
+                event.commit();
+            }
         }
     }
 
@@ -292,6 +307,9 @@ public class ModelCompletionProvider extends CompletionProvider<CompletionParame
      */
     private class ModelContentIterator implements ContentIterator {
 
+//        Number of visited python files, it is shown in Flight Recorder
+        private int filesCount = 0;
+
         @Override
         public boolean processFile(@NotNull VirtualFile fileInProject) {
 //            If file is in project and not in black list folder -> create variable visitor and get variables
@@ -310,6 +328,7 @@ public class ModelCompletionProvider extends CompletionProvider<CompletionParame
 
                 innerFile.accept(variablesVisitor);
                 allVariablesMap.putAll(variablesVisitor.getVariablesMap());
+                filesCount++;
                 return true;
             }
             return false;
@@ -12,6 +12,7 @@ import com.jetbrains.python.psi.PyFunction;
 import com.jetbrains.python.psi.impl.PyFunctionImpl;
 import dynamic.type.inferences.GlobalProjectInstances;
 import dynamic.type.inferences.model.loader.BertModelLoader;
+import dynamic.type.inferences.model.runner.LatestPrediction;
 import dynamic.type.inferences.model.runner.TorchBert;
 import dynamic.type.inferences.notification.VaDimaNotification;
 import dynamic.type.inferences.startUpActivity.ModelStartUpActivity;
@@ -28,6 +29,9 @@ import java.util.List;
 public class ModelDocumentationProvider implements DocumentationProvider {
 
     private final TorchBert torchBertInstance = ModelStartUpActivity.getTorchBertInstance();
+//    Hover and ctrl+q popups are independent, each of them needs only its latest prediction
+    private final LatestPrediction hoverPrediction = new LatestPrediction(torchBertInstance);
+    private final LatestPrediction docPrediction = new LatestPrediction(torchBertInstance);
     private final Object sharedObject = new Object();
     private final BertModelLoader loader = new BertModelLoader(sharedObject);
     private final DocumentationProvider provider = new PythonDocumentationProvider();
@@ -47,9 +51,9 @@ public class ModelDocumentationProvider implements DocumentationProvider {
 //        Default string may be null, handle that
         if (element instanceof PyFunction) {
             if (defaultString != null) {
-                return defaultString.concat(addInfoWithPredictions(element));
+                return defaultString.concat(addInfoWithPredictions(element, hoverPrediction));
             } else
-                return addInfoWithPredictions(element);
+                return addInfoWithPredictions(element, hoverPrediction);
         }
         return defaultString;
     }
@@ -69,9 +73,9 @@ public class ModelDocumentationProvider implements DocumentationProvider {
 //        Default string may be null, handle that
         if (element instanceof PyFunction) {
             if (defaultString != null) {
-                return defaultString.concat(addInfoWithPredictions(element));
+                return defaultString.concat(addInfoWithPredictions(element, docPrediction));
             } else
-                return addInfoWithPredictions(element);
+                return addInfoWithPredictions(element, docPrediction);
         }
         return defaultString;
     }
@@ -79,18 +83,20 @@ public class ModelDocumentationProvider implements DocumentationProvider {
     /**
      * Method adding predictions to default string provided by PyCharm, where
      *
-     * @param element is the function for prediction
+     * @param element    is the function for prediction
+     * @param prediction is the place of prediction. Its previous prediction is cancelled as stale
      * @return string with top-5 predictions for each variable
      */
-    private String addInfoWithPredictions(PsiElement element) {
+    private String addInfoWithPredictions(PsiElement element, LatestPrediction prediction) {
 //        Create notification
         VaDimaNotification notification = new VaDimaNotification();
         if (torchBertInstance.isInitialized()) {
             if (element instanceof PyFunction) {
                 String funcName = ((PyFunctionImpl) element).getName();
                 try {
-//                     Add predictions to output
-                    List<Classification> predicts = torchBertInstance.predictOne((PyFunction) element);
+//                     Add predictions to output. Prediction runs in background and is cancelled
+//                     when popup is closed (mouse moved away)
+                    List<Classification> predicts = prediction.predict((PyFunction) element);
                     if (predicts != null) {
                         return getBeautifulPredictions(funcName, predicts);
                     }
@@ -0,0 +1,116 @@
+package dynamic.type.inferences.metrics;
+
+import com.intellij.openapi.application.PathManager;
+import dynamic.type.inferences.cache.BoundedConcurrentCache;
+import dynamic.type.inferences.cache.PersistentPredictionStore;
+import dynamic.type.inferences.model.runner.PredictionBatcher;
+import dynamic.type.inferences.model.runner.PredictorPool;
+import dynamic.type.inferences.model.runner.TorchBert;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Plain text report of everything that is measured by the plugin: stages of pipeline, caches,
+ * predictor pools, batcher and startup. It is shown in settings and saved to the log directory of IDE,
+ * so it can be attached to a bug report together with idea.log.
+ */
+public final class DiagnosticsReport {
+
+    private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String ROW = "%-32s %8s %9s %9s %9s %9s %12s %12s%n";
+
+    private DiagnosticsReport() {
+    }
+
+    /**
+     * Creation of report, where
+     *
+     * @param torchBert is a model of plugin
+     * @return text of report
+     */
+    public static String create(TorchBert torchBert) {
+        StringBuilder report = new StringBuilder();
+        report.append("VaDima diagnostics ").append(LocalDateTime.now()).append(System.lineSeparator());
+        report.append(String.format("Backend: %s, model: %s%n", torchBert.getBackendType(), torchBert.getModelState()));
+        report.append(String.format("Startup: %d ms %s, warm-up: %d ms%n",
+                torchBert.getStartupMillis(), torchBert.getStartupTimings(), torchBert.getWarmUpMillis()));
+        long residentBytes = ResidentMemory.getBytes();
+        Runtime runtime = Runtime.getRuntime();
+        report.append(String.format("Memory: heap %d MB of %d MB, resident %s%n",
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20,
+                residentBytes < 0 ? "unknown" : (residentBytes >> 20) + " MB"));
+
+        appendStages(report, PipelineMetrics.getInstance());
+
+        report.append(System.lineSeparator());
+        BoundedConcurrentCache<?, ?> cache = torchBert.getPredictionCache();
+        report.append(String.format("Prediction cache: %d of %d, hits %d, misses %d, hit rate %.1f%%%n",
+                cache.size(), cache.getMaxSize(), cache.getHits(), cache.getMisses(), cache.getHitRate() * 100));
+        PersistentPredictionStore store = torchBert.getPredictionStore();
+        if (store != null)
+            report.append(String.format("Prediction store: %d predictions, %d KB, hits %d, misses %d, "
+                            + "compactions %d%n", store.size(), store.getFileBytes() >> 10, store.getHits(),
+                    store.getMisses(), store.getCompactionsCount()));
+        appendPool(report, "Predictor pool", torchBert.getPredictors());
+        appendPool(report, "Batch predictor pool", torchBert.getBatchPredictors());
+        PredictionBatcher batcher = torchBert.getBatcher();
+        if (batcher != null) {
+            appendHistogram(report, "Batch size", batcher.getBatchSizes());
+            appendHistogram(report, "Batch queue, us", batcher.getQueueMicros());
+            appendHistogram(report, "Batch forward, us", batcher.getBatchMicros());
+            appendHistogram(report, "Batched request, us", batcher.getRequestMicros());
+        }
+        return report.toString();
+    }
+
+    /**
+     * Saves report to the log directory of IDE, where
+     *
+     * @param report is a text of report
+     * @return path of saved file
+     * @throws IOException if file cannot be written
+     */
+    public static Path dump(String report) throws IOException {
+        Path path = Paths.get(PathManager.getLogPath(),
+                "vadima-diagnostics-" + LocalDateTime.now().format(FILE_DATE) + ".txt");
+        Files.createDirectories(path.getParent());
+        return Files.write(path, report.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendStages(StringBuilder report, PipelineMetrics metrics) {
+        report.append(System.lineSeparator()).append("Pipeline stages").append(System.lineSeparator());
+        report.append(String.format(ROW, "Stage", "Count", "p50, us", "p95, us", "p99, us", "Max, us",
+                "Alloc p50", "Alloc mean"));
+        for (PipelineMetrics.Stage stage : PipelineMetrics.Stage.values()) {
+            Histogram micros = metrics.getMicros(stage);
+            Histogram bytes = metrics.getAllocatedBytes(stage);
+            boolean allocationKnown = bytes.getCount() > 0;
+            report.append(String.format(ROW, stage.getDisplayName(), micros.getCount(),
+                    micros.getPercentile(50), micros.getPercentile(95), micros.getPercentile(99), micros.getMax(),
+                    allocationKnown ? bytes.getPercentile(50) : "-",
+                    allocationKnown ? String.format("%.0f", bytes.getMean()) : "-"));
+        }
+    }
+
+    private static void appendPool(StringBuilder report, String name, PredictorPool<?, ?> pool) {
+        if (pool == null)
+            return;
+        report.append(String.format("%s: %d of %d created, %d in use, borrows %d, waits %d, "
+                        + "wait %.1f ms total, %.1f ms max%n", name, pool.getCreatedCount(), pool.getMaxSize(),
+                pool.getInUseCount(), pool.getBorrowsCount(), pool.getWaitsCount(), pool.getTotalWaitMillis(),
+                pool.getMaxWaitMillis()));
+    }
+
+    private static void appendHistogram(StringBuilder report, String name, Histogram histogram) {
+        report.append(String.format("%s: count %d, p50 %d, p95 %d, p99 %d, max %d%n", name, histogram.getCount(),
+                histogram.getPercentile(50), histogram.getPercentile(95), histogram.getPercentile(99),
+                histogram.getMax()));
+    }
+}
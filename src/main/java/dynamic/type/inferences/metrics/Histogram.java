@@ -0,0 +1,121 @@
+package dynamic.type.inferences.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of non-negative long values (latencies in microseconds, batch sizes, bytes...).
+ * <p>
+ * Values below 16 have their own buckets, bigger values are put into 8 buckets per power of two,
+ * so any percentile is known with error less than 12.5%. Recording is lock-free and allocates nothing,
+ * so it can be used on the prediction path.
+ */
+public class Histogram {
+
+    private static final int EXACT_VALUES = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int BUCKETS = EXACT_VALUES + (Long.SIZE - SUB_BUCKET_BITS - 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Adds value to histogram, where
+     *
+     * @param value is a value to add. Negative values are counted as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return sum of all recorded values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return average of recorded values or 0 if there are no values
+     */
+    public double getMean() {
+        long valuesCount = getCount();
+        return valuesCount == 0 ? 0.0 : (double) getSum() / valuesCount;
+    }
+
+    /**
+     * @return the biggest recorded value
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Percentile of recorded values, where
+     *
+     * @param percentile is a percentile from 0 to 100
+     * @return the upper bound of the bucket with the given percentile (never bigger than maximum)
+     * or 0 if there are no values
+     */
+    public long getPercentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank)
+                return Math.min(upperBoundOf(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Removes all recorded values
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < EXACT_VALUES)
+            return (int) value;
+//        The highest 4 bits of value: 1 and 3 bits of sub-bucket
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 1 - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT_VALUES + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < EXACT_VALUES)
+            return bucket;
+        int shift = (bucket - EXACT_VALUES) / SUB_BUCKETS + 1;
+        long mantissa = (bucket - EXACT_VALUES) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
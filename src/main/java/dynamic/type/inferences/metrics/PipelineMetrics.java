@@ -0,0 +1,133 @@
+package dynamic.type.inferences.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Latency and allocations of each stage of prediction pipeline: from reading function from PSI
+ * to combining top-5 types. It shows which stage makes a hint slow.
+ * <p>
+ * Each stage is recorded where it is done, so one call of stage is one value: a batch of several functions
+ * is one value of {@link Stage#FORWARD_PASS}. Allocated bytes are counted for the current thread by JVM,
+ * so they are known only for stages that run on one thread. Recording costs two reads of clock and
+ * allocation counter and allocates nothing, so it is always on.
+ */
+public final class PipelineMetrics {
+
+    /**
+     * Stages of pipeline in order of execution
+     */
+    public enum Stage {
+        PREPARE_CODE("Function code from PSI"),
+        TOKENIZATION("Tokenization"),
+        PARAMETER_MASK("Parameters alignment and mask"),
+        INPUT_TENSORS("Input tensors"),
+        FORWARD_PASS("Forward pass"),
+        PROCESS_OUTPUT("Output processing"),
+        AGGREGATION("Aggregation of top-5"),
+        REQUEST("Whole request");
+
+        private final String displayName;
+
+        Stage(String displayName) {
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return name of stage for diagnostics
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+//    Null if JVM does not count allocations of threads
+    private static final com.sun.management.ThreadMXBean THREADS = getAllocationCounter();
+
+    private final Histogram[] micros = new Histogram[Stage.values().length];
+    private final Histogram[] allocatedBytes = new Histogram[Stage.values().length];
+
+    private PipelineMetrics() {
+        for (int i = 0; i < micros.length; i++) {
+            micros[i] = new Histogram();
+            allocatedBytes[i] = new Histogram();
+        }
+    }
+
+    /**
+     * @return metrics of the whole plugin
+     */
+    public static PipelineMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Allocation counter of the current thread. It is taken at the start of stage and given to
+     * {@link #record(Stage, long, long)}.
+     *
+     * @return bytes allocated by the current thread since its start or -1 if it is not known
+     */
+    public static long allocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    /**
+     * Records finished stage, where
+     *
+     * @param stage               is a finished stage
+     * @param startNanos          is {@link System#nanoTime()} at the start of stage
+     * @param startAllocatedBytes is {@link #allocatedBytes()} at the start of stage. -1 if stage ran on several
+     *                            threads, then only time is recorded
+     */
+    public void record(Stage stage, long startNanos, long startAllocatedBytes) {
+        micros[stage.ordinal()].record((System.nanoTime() - startNanos) / 1000);
+        if (startAllocatedBytes >= 0) {
+            long allocated = allocatedBytes();
+            if (allocated >= 0)
+                allocatedBytes[stage.ordinal()].record(allocated - startAllocatedBytes);
+        }
+    }
+
+    /**
+     * @param stage is a stage of pipeline
+     * @return durations of stage in microseconds
+     */
+    public Histogram getMicros(Stage stage) {
+        return micros[stage.ordinal()];
+    }
+
+    /**
+     * @param stage is a stage of pipeline
+     * @return bytes allocated by one call of stage
+     */
+    public Histogram getAllocatedBytes(Stage stage) {
+        return allocatedBytes[stage.ordinal()];
+    }
+
+    /**
+     * @return if allocated bytes are counted by this JVM
+     */
+    public boolean isAllocationCounted() {
+        return THREADS != null;
+    }
+
+    /**
+     * Removes all recorded values, for example, before reproducing a slow hint
+     */
+    public void reset() {
+        for (int i = 0; i < micros.length; i++) {
+            micros[i].reset();
+            allocatedBytes[i].reset();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationCounter() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+        return counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()
+                ? counter : null;
+    }
+}
@@ -0,0 +1,142 @@
+package dynamic.type.inferences.metrics;
+
+import java.time.LocalTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The latest prediction requests for the status bar: latency of the last one, average of a window of the
+ * latest ones and a short list of slow requests with names of functions.
+ * <p>
+ * Unlike {@link PipelineMetrics} it answers "what happens right now", so old values are simply dropped.
+ * There are a few requests per second at most, so it is synchronized.
+ */
+public class RecentRequests {
+
+    /**
+     * Request that was slower than threshold
+     */
+    public static class SlowRequest {
+        private final String functionName;
+        private final long micros;
+        private final LocalTime time;
+        private final boolean cached;
+
+        /**
+         * Simple constructor, where
+         *
+         * @param functionName is a name of predicted function
+         * @param micros       is a duration of request
+         * @param time         is a time when request finished
+         * @param cached       is true if prediction was taken from cache
+         */
+        public SlowRequest(String functionName, long micros, LocalTime time, boolean cached) {
+            this.functionName = functionName;
+            this.micros = micros;
+            this.time = time;
+            this.cached = cached;
+        }
+
+        public String getFunctionName() {
+            return functionName;
+        }
+
+        public long getMicros() {
+            return micros;
+        }
+
+        public LocalTime getTime() {
+            return time;
+        }
+
+        public boolean isCached() {
+            return cached;
+        }
+    }
+
+    private final long[] window;
+    private final int maxSlowRequests;
+    private final long slowMicros;
+    private final Deque<SlowRequest> slowRequests = new ArrayDeque<>();
+//    Index of the next value in window and number of values in it
+    private int next = 0;
+    private int size = 0;
+    private long windowSum = 0;
+    private long lastMicros = -1;
+
+    /**
+     * Creation of empty log, where
+     *
+     * @param windowSize      is a number of the latest requests for average
+     * @param maxSlowRequests is a number of slow requests that are kept
+     * @param slowMillis      is a duration after which request is slow
+     */
+    public RecentRequests(int windowSize, int maxSlowRequests, long slowMillis) {
+        this.window = new long[windowSize];
+        this.maxSlowRequests = maxSlowRequests;
+        this.slowMicros = slowMillis * 1000;
+    }
+
+    /**
+     * Records finished request, where
+     *
+     * @param functionName is a name of predicted function
+     * @param micros       is a duration of request
+     * @param cached       is true if prediction was taken from cache
+     */
+    public synchronized void record(String functionName, long micros, boolean cached) {
+        lastMicros = micros;
+        windowSum += micros - window[next];
+        window[next] = micros;
+        next = (next + 1) % window.length;
+        size = Math.min(size + 1, window.length);
+        if (micros >= slowMicros) {
+            if (slowRequests.size() == maxSlowRequests)
+                slowRequests.removeLast();
+            slowRequests.addFirst(new SlowRequest(functionName, micros, LocalTime.now(), cached));
+        }
+    }
+
+    /**
+     * @return duration of the last request in microseconds or -1 if there were no requests
+     */
+    public synchronized long getLastMicros() {
+        return lastMicros;
+    }
+
+    /**
+     * @return average duration of the latest requests in microseconds or -1 if there were no requests
+     */
+    public synchronized long getAverageMicros() {
+        return size == 0 ? -1 : windowSum / size;
+    }
+
+    /**
+     * @return slow requests, the latest first
+     */
+    public synchronized List<SlowRequest> getSlowRequests() {
+        return new ArrayList<>(slowRequests);
+    }
+
+    /**
+     * @return duration after which request is slow
+     */
+    public long getSlowMillis() {
+        return slowMicros / 1000;
+    }
+
+    /**
+     * Removes all recorded requests
+     */
+    public synchronized void reset() {
+        Arrays.fill(window, 0);
+        next = 0;
+        size = 0;
+        windowSum = 0;
+        lastMicros = -1;
+        slowRequests.clear();
+    }
+}
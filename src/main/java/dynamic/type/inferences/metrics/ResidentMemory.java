@@ -0,0 +1,35 @@
+package dynamic.type.inferences.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Resident memory of the whole IDE process. Native libraries and weights of model are not seen
+ * in Java heap, so memory taken by model is only seen here.
+ * <p>
+ * It is read from /proc, so it is known only on Linux.
+ */
+public final class ResidentMemory {
+
+    private static final Path STATM = Paths.get("/proc/self/statm");
+//    Size of memory page is not known from Java, but it is 4 KB on all usual Linux machines
+    private static final long PAGE_SIZE = 4096;
+
+    private ResidentMemory() {
+    }
+
+    /**
+     * @return resident memory of process in bytes or -1 if it is not known on this system
+     */
+    public static long getBytes() {
+        try {
+//            Second value is a number of resident pages
+            String[] values = Files.readString(STATM).trim().split(" ");
+            return values.length > 1 ? Long.parseLong(values[1]) * PAGE_SIZE : -1;
+        } catch (IOException | NumberFormatException e) {
+            return -1;
+        }
+    }
+}
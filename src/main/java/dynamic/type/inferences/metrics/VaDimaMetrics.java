@@ -0,0 +1,183 @@
+package dynamic.type.inferences.metrics;
+
+import com.intellij.openapi.diagnostic.Logger;
+import dynamic.type.inferences.cache.PersistentPredictionStore;
+import dynamic.type.inferences.metrics.PipelineMetrics.Stage;
+import dynamic.type.inferences.model.backend.BackendType;
+import dynamic.type.inferences.model.runner.PredictionBatcher;
+import dynamic.type.inferences.model.runner.PredictorPool;
+import dynamic.type.inferences.model.runner.TorchBert;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * MBean of plugin. Every attribute is read from the model at the moment of request, so nothing is collected
+ * when nobody watches JMX.
+ * <p>
+ * DJL does not count memory of NDManager, so native memory is estimated as resident memory of process
+ * minus memory committed by JVM. It includes PyTorch (or ONNX Runtime) libraries, weights and tensors
+ * of model, and also native memory of IDE itself, so changes of it are more interesting than the value.
+ */
+public class VaDimaMetrics implements VaDimaMetricsMBean {
+
+    public static final String OBJECT_NAME = "dynamic.type.inferences:type=VaDima";
+
+    private static final Logger LOG = Logger.getInstance(VaDimaMetrics.class);
+
+    private final TorchBert torchBert;
+    private final PipelineMetrics metrics = PipelineMetrics.getInstance();
+
+    /**
+     * Simple constructor, where
+     *
+     * @param torchBert is a model of plugin
+     */
+    public VaDimaMetrics(TorchBert torchBert) {
+        this.torchBert = torchBert;
+    }
+
+    /**
+     * Registers MBean in platform MBean server. Repeated registration is ignored, so it can be called
+     * for each opened project. Failure is only logged, plugin works without JMX.
+     *
+     * @param torchBert is a model of plugin
+     */
+    public static synchronized void register(TorchBert torchBert) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(new VaDimaMetrics(torchBert), name);
+        } catch (JMException | SecurityException e) {
+            LOG.warn("VaDima metrics are not registered in JMX", e);
+        }
+    }
+
+    @Override
+    public String getModelState() {
+        return torchBert.getModelState().name();
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return torchBert.isInitialized();
+    }
+
+    @Override
+    public String getBackend() {
+        BackendType type = torchBert.getBackendType();
+        return type != null ? type.getDisplayName() : "";
+    }
+
+    @Override
+    public long getStartupMillis() {
+        return torchBert.getStartupMillis();
+    }
+
+    @Override
+    public long getPredictionsCount() {
+        return metrics.getMicros(Stage.REQUEST).getCount();
+    }
+
+    @Override
+    public long getForwardPassesCount() {
+        return metrics.getMicros(Stage.FORWARD_PASS).getCount();
+    }
+
+    @Override
+    public double getRequestLatencyP50Millis() {
+        return toMillis(metrics.getMicros(Stage.REQUEST).getPercentile(50));
+    }
+
+    @Override
+    public double getRequestLatencyP95Millis() {
+        return toMillis(metrics.getMicros(Stage.REQUEST).getPercentile(95));
+    }
+
+    @Override
+    public double getRequestLatencyP99Millis() {
+        return toMillis(metrics.getMicros(Stage.REQUEST).getPercentile(99));
+    }
+
+    @Override
+    public double getForwardPassP50Millis() {
+        return toMillis(metrics.getMicros(Stage.FORWARD_PASS).getPercentile(50));
+    }
+
+    @Override
+    public double getForwardPassP95Millis() {
+        return toMillis(metrics.getMicros(Stage.FORWARD_PASS).getPercentile(95));
+    }
+
+    @Override
+    public double getForwardPassP99Millis() {
+        return toMillis(metrics.getMicros(Stage.FORWARD_PASS).getPercentile(99));
+    }
+
+    @Override
+    public int getCacheSize() {
+        return torchBert.getPredictionCache().size();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        return torchBert.getPredictionCache().getHitRate();
+    }
+
+    @Override
+    public double getStoreHitRatio() {
+        PersistentPredictionStore store = torchBert.getPredictionStore();
+        if (store == null)
+            return -1;
+        long hits = store.getHits();
+        long total = hits + store.getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public int getPendingPredictions() {
+        return torchBert.getPendingPredictions();
+    }
+
+    @Override
+    public int getBatcherQueueDepth() {
+        PredictionBatcher batcher = torchBert.getBatcher();
+        return batcher != null ? batcher.getQueueDepth() : 0;
+    }
+
+    @Override
+    public int getPredictorsInUse() {
+        PredictorPool<?, ?> predictors = torchBert.getPredictors();
+        PredictorPool<?, ?> batchPredictors = torchBert.getBatchPredictors();
+        return (predictors != null ? predictors.getInUseCount() : 0)
+                + (batchPredictors != null ? batchPredictors.getInUseCount() : 0);
+    }
+
+    @Override
+    public long getResidentMemoryBytes() {
+        return ResidentMemory.getBytes();
+    }
+
+    @Override
+    public long getNativeMemoryBytes() {
+        long residentBytes = ResidentMemory.getBytes();
+        if (residentBytes < 0)
+            return -1;
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long jvmBytes = memory.getHeapMemoryUsage().getCommitted() + memory.getNonHeapMemoryUsage().getCommitted();
+        return Math.max(0, residentBytes - jvmBytes);
+    }
+
+    @Override
+    public void resetLatencies() {
+        metrics.reset();
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,56 @@
+package dynamic.type.inferences.metrics;
+
+/**
+ * Metrics of plugin for JMX clients (JConsole, VisualVM, Prometheus JMX exporter).
+ * Latencies are in milliseconds, ratios are from 0 to 1, -1 means that value is not known.
+ */
+public interface VaDimaMetricsMBean {
+
+    /**
+     * @return NOT_LOADED, DOWNLOADING, LOADING, READY or UNLOADED, see {@link dynamic.type.inferences.model.runner.ModelState}
+     */
+    String getModelState();
+
+    boolean isInitialized();
+
+    String getBackend();
+
+    long getStartupMillis();
+
+    long getPredictionsCount();
+
+    long getForwardPassesCount();
+
+    double getRequestLatencyP50Millis();
+
+    double getRequestLatencyP95Millis();
+
+    double getRequestLatencyP99Millis();
+
+    double getForwardPassP50Millis();
+
+    double getForwardPassP95Millis();
+
+    double getForwardPassP99Millis();
+
+    int getCacheSize();
+
+    double getCacheHitRatio();
+
+    double getStoreHitRatio();
+
+    int getPendingPredictions();
+
+    int getBatcherQueueDepth();
+
+    int getPredictorsInUse();
+
+    long getResidentMemoryBytes();
+
+    long getNativeMemoryBytes();
+
+    /**
+     * Removes recorded latencies of pipeline stages
+     */
+    void resetLatencies();
+}
@@ -0,0 +1,36 @@
+package dynamic.type.inferences.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one forward pass of model. A batch of several functions is one forward pass.
+ */
+@Name("dynamic.type.inferences.ForwardPass")
+@Label("VaDima Forward Pass")
+@Category("VaDima")
+@Description("Forward pass of model for one function or a batch of functions")
+@StackTrace(false)
+public class ForwardPassEvent extends jdk.jfr.Event {
+
+    @Label("Function")
+    @Description("Names of all functions of batch")
+    public String functionName;
+
+    @Label("Functions")
+    public int functionsCount;
+
+    @Label("Tokens")
+    @Description("Tokens of all functions without paddings")
+    public int tokensCount;
+
+    @Label("Sequence Bucket")
+    @Description("Length of each input row after padding")
+    public int bucket;
+
+    @Label("Backend")
+    public String backend;
+}
@@ -0,0 +1,29 @@
+package dynamic.type.inferences.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of downloading model file from the DropBox
+ */
+@Name("dynamic.type.inferences.ModelLoad")
+@Label("VaDima Model Load")
+@Category("VaDima")
+@Description("Download of model file from the DropBox")
+@StackTrace(false)
+public class ModelLoadEvent extends jdk.jfr.Event {
+
+    @Label("Model")
+    public String modelName;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,32 @@
+package dynamic.type.inferences.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one prediction request: from reading function from PSI until top-5 types are ready.
+ * Asynchronous requests are committed by the thread that finished prediction.
+ */
+@Name("dynamic.type.inferences.Prediction")
+@Label("VaDima Prediction")
+@Category("VaDima")
+@Description("Prediction of parameter types of one function")
+@StackTrace(false)
+public class PredictionEvent extends jdk.jfr.Event {
+
+    @Label("Function")
+    public String functionName;
+
+    @Label("Parameters")
+    public int parametersCount;
+
+    @Label("Cached")
+    @Description("Prediction was taken from memory or disk cache")
+    public boolean cached;
+
+    @Label("Asynchronous")
+    public boolean async;
+}
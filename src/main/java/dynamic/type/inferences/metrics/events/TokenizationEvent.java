@@ -0,0 +1,29 @@
+package dynamic.type.inferences.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of tokenization of one function
+ */
+@Name("dynamic.type.inferences.Tokenization")
+@Label("VaDima Tokenization")
+@Category("VaDima")
+@Description("GPT2 tokenization of function code into vocabulary ids")
+@StackTrace(false)
+public class TokenizationEvent extends jdk.jfr.Event {
+
+    @Label("Function")
+    public String functionName;
+
+    @Label("Tokens")
+    @Description("Tokens of code with special tokens, without paddings")
+    public int tokensCount;
+
+    @Label("Sequence Bucket")
+    @Description("Length of input after padding")
+    public int bucket;
+}
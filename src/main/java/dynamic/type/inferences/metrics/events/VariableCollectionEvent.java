@@ -0,0 +1,24 @@
+package dynamic.type.inferences.metrics.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of collecting variables of project for completion
+ */
+@Name("dynamic.type.inferences.VariableCollection")
+@Label("VaDima Variable Collection")
+@Category("VaDima")
+@Description("Visiting of all Python files of project to collect variables for completion")
+@StackTrace(false)
+public class VariableCollectionEvent extends jdk.jfr.Event {
+
+    @Label("Files")
+    public int filesCount;
+
+    @Label("Variables")
+    public int variablesCount;
+}
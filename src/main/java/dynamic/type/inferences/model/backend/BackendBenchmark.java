@@ -0,0 +1,72 @@
+package dynamic.type.inferences.model.backend;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Measurements of one backend, see {@link dynamic.type.inferences.model.runner.TorchBert#compareBackends(int)}
+ */
+public final class BackendBenchmark {
+
+    private final BackendType type;
+    private final long startupMillis;
+    private final double firstPredictionMillis;
+    private final Map<Integer, Double> latencies;
+    private final long residentBytes;
+
+    /**
+     * Simple constructor, where
+     *
+     * @param type                  is a measured backend
+     * @param startupMillis         is a time of loading engine and model
+     * @param firstPredictionMillis is a time of the first prediction after loading
+     * @param latencies             are average milliseconds of one prediction for each length bucket
+     * @param residentBytes         is a growth of resident memory of process after loading, -1 if it is not known
+     */
+    public BackendBenchmark(BackendType type, long startupMillis, double firstPredictionMillis,
+                            Map<Integer, Double> latencies, long residentBytes) {
+        this.type = type;
+        this.startupMillis = startupMillis;
+        this.firstPredictionMillis = firstPredictionMillis;
+        this.latencies = Collections.unmodifiableMap(latencies);
+        this.residentBytes = residentBytes;
+    }
+
+    /**
+     * @return measured backend
+     */
+    public BackendType getType() {
+        return type;
+    }
+
+    /**
+     * @return milliseconds of loading engine and model
+     */
+    public long getStartupMillis() {
+        return startupMillis;
+    }
+
+    /**
+     * @return milliseconds of the first prediction after loading
+     */
+    public double getFirstPredictionMillis() {
+        return firstPredictionMillis;
+    }
+
+    /**
+     * @return average milliseconds of one prediction for each bucket length, in order of buckets
+     */
+    public Map<Integer, Double> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Growth of resident memory. Native libraries are never unloaded, so the backend that was already
+     * used by the IDE shows only memory of its model.
+     *
+     * @return bytes or -1 if resident memory is not known on this system
+     */
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+}
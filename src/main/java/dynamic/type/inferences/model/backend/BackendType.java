@@ -0,0 +1,102 @@
+package dynamic.type.inferences.model.backend;
+
+import dynamic.type.inferences.GlobalProjectInstances;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Inference backends. Each of them has its own export of the same model.
+ * <p>
+ * Only PyTorch model is published in the DropBox. ONNX export is not published yet, so ONNX Runtime is available
+ * only if the export is put to {@link GlobalProjectInstances#ONNX_MODEL_PATH} by hand and the library is added
+ * to the plugin (see build.gradle.kts). Otherwise it is not offered in settings and PyTorch is used.
+ */
+public enum BackendType {
+    PYTORCH("PyTorch", GlobalProjectInstances.MODEL_NAME),
+    ONNX_RUNTIME("ONNX Runtime", GlobalProjectInstances.ONNX_MODEL_NAME);
+
+    private final String displayName;
+    private final String modelName;
+
+    BackendType(String displayName, String modelName) {
+        this.displayName = displayName;
+        this.modelName = modelName;
+    }
+
+    /**
+     * @return name that is shown in settings and kept in them
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return name of model file in the DropBox
+     */
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Local path of model file. For PyTorch it is taken from {@link GlobalProjectInstances#MODEL_PATH_FOR_WORK}
+     * as it is done everywhere for checking if file exists (Windows case).
+     *
+     * @return path of model file
+     */
+    public String getModelPath() {
+        if (this == ONNX_RUNTIME)
+            return GlobalProjectInstances.ONNX_MODEL_PATH;
+        String modelPath = GlobalProjectInstances.MODEL_PATH_FOR_WORK.replaceFirst("file:/", "");
+        return modelPath.contains(":/") ? modelPath : "/" + modelPath;
+    }
+
+    /**
+     * @return if backend can be used: its library is in the plugin and its model exists or can be downloaded
+     */
+    public boolean isAvailable() {
+        if (this == PYTORCH)
+            return true;
+        return new File(getModelPath()).exists() && hasClass("ai.onnxruntime.OrtEnvironment");
+    }
+
+    /**
+     * @return backends that can be used, PyTorch is always the first one
+     */
+    public static BackendType[] availableValues() {
+        return Arrays.stream(values())
+                .filter(BackendType::isAvailable)
+                .toArray(BackendType[]::new);
+    }
+
+    /**
+     * Search of backend by name from settings, where
+     *
+     * @param displayName is a name of backend
+     * @return backend with this name or PyTorch if there is no such backend or it is not available
+     */
+    public static BackendType fromName(String displayName) {
+        for (BackendType type : values()) {
+            if (type.displayName.equals(displayName) && type.isAvailable())
+                return type;
+        }
+        return PYTORCH;
+    }
+
+    private static boolean hasClass(String name) {
+        try {
+            Class.forName(name, false, BackendType.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return name that is shown in settings
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,70 @@
+package dynamic.type.inferences.model.backend;
+
+import ai.djl.modality.Classifications;
+import ai.djl.translate.TranslateException;
+import dynamic.type.inferences.model.translator.BertBatchTranslator;
+import dynamic.type.inferences.model.translator.BertTranslator;
+import dynamic.type.inferences.model.translator.FunctionInput;
+
+import java.util.List;
+
+/**
+ * Engine that runs the loaded model. Tokenization, caching and combining of predictions
+ * are the same for all engines and are done by {@link dynamic.type.inferences.model.runner.TorchBert},
+ * backend only turns functions into classifications of their parameters.
+ * <p>
+ * Backend is used by several threads at the same time and is closed when model is unloaded.
+ */
+public interface InferenceBackend extends AutoCloseable {
+
+    /**
+     * Backend with loaded model weights, which only waits for translators.
+     * Weights are loaded at the same time as tokenizer, so translators are given later.
+     */
+    @FunctionalInterface
+    interface Factory {
+        /**
+         * Creation of backend, where
+         *
+         * @param translator      is a translator of single functions
+         * @param batchTranslator is a translator of several functions at once
+         * @param concurrency     is a maximum number of predictions at the same time
+         * @return backend that is ready for predictions
+         */
+        InferenceBackend create(BertTranslator translator, BertBatchTranslator batchTranslator, int concurrency);
+    }
+
+    /**
+     * @return type of backend
+     */
+    BackendType getType();
+
+    /**
+     * Prediction of one function, where
+     *
+     * @param input is a function with its parameters
+     * @return classifications for each parameter
+     * @throws TranslateException if model failed
+     */
+    Classifications[] predict(FunctionInput input) throws TranslateException;
+
+    /**
+     * Prediction of several functions in one forward pass, where
+     *
+     * @param inputs are functions with their parameters
+     * @return classifications for each parameter of each function, in order of inputs
+     * @throws TranslateException if model failed
+     */
+    List<Classifications[]> predictBatch(List<FunctionInput> inputs) throws TranslateException;
+
+    /**
+     * @return maximum number of predictions that run at the same time
+     */
+    int getConcurrency();
+
+    /**
+     * Releases model and its native memory
+     */
+    @Override
+    void close();
+}
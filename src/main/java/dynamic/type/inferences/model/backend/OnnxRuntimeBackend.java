@@ -0,0 +1,201 @@
+package dynamic.type.inferences.model.backend;
+
+import ai.djl.MalformedModelException;
+import ai.djl.modality.Classifications;
+import ai.djl.translate.TranslateException;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OnnxValue;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import dynamic.type.inferences.metrics.PipelineMetrics;
+import dynamic.type.inferences.metrics.PipelineMetrics.Stage;
+import dynamic.type.inferences.metrics.events.ForwardPassEvent;
+import dynamic.type.inferences.model.translator.BertBatchTranslator;
+import dynamic.type.inferences.model.translator.EncodedBatch;
+import dynamic.type.inferences.model.translator.FunctionInput;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * ONNX export of the model run by ONNX Runtime on CPU. It does not need PyTorch native libraries,
+ * so it starts faster and takes less memory.
+ * <p>
+ * Session of ONNX Runtime can be used by several threads at the same time, so there is no pool.
+ * Inputs are encoded by {@link BertBatchTranslator} and one function is a batch of one.
+ */
+public class OnnxRuntimeBackend implements InferenceBackend {
+
+//    Inputs of exported model in order of its forward method: ids, attention mask and mask of parameters twice
+    private static final int INPUTS_COUNT = 4;
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final List<String> inputNames;
+    private final BertBatchTranslator batchTranslator;
+    private final int concurrency;
+    private final PipelineMetrics metrics = PipelineMetrics.getInstance();
+
+    /**
+     * Creation of backend over loaded session, where
+     *
+     * @param environment     is an environment of ONNX Runtime
+     * @param session         is a session with loaded model
+     * @param batchTranslator encodes inputs and decodes outputs
+     * @param concurrency     is a maximum number of predictions at the same time
+     */
+    public OnnxRuntimeBackend(OrtEnvironment environment, OrtSession session,
+                              BertBatchTranslator batchTranslator, int concurrency) {
+        this.environment = environment;
+        this.session = session;
+        this.inputNames = new ArrayList<>(session.getInputNames());
+        this.batchTranslator = batchTranslator;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Loading of model into a new session, where
+     *
+     * @param modelPath      is a path of ONNX model file
+     * @param interOpThreads is a number of threads for independent operators, 0 means default
+     * @param intraOpThreads is a number of threads inside of one operator, 0 means default
+     * @return factory of backend over loaded session
+     * @throws IOException             if model file does not exist
+     * @throws MalformedModelException if ONNX Runtime cannot load model
+     */
+    public static InferenceBackend.Factory load(String modelPath, int interOpThreads, int intraOpThreads)
+            throws IOException, MalformedModelException {
+        if (!Files.exists(Paths.get(modelPath)))
+            throw new FileNotFoundException(modelPath);
+        OrtEnvironment environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            if (interOpThreads > 0)
+                options.setInterOpNumThreads(interOpThreads);
+            if (intraOpThreads > 0)
+                options.setIntraOpNumThreads(intraOpThreads);
+            OrtSession session = environment.createSession(modelPath, options);
+            if (session.getInputNames().size() != INPUTS_COUNT) {
+                closeQuietly(session);
+                throw new MalformedModelException("ONNX model should have " + INPUTS_COUNT + " inputs, but it has "
+                        + session.getInputNames());
+            }
+            return (translator, batchTranslator, concurrency) ->
+                    new OnnxRuntimeBackend(environment, session, batchTranslator, concurrency);
+        } catch (OrtException e) {
+            throw new MalformedModelException("ONNX model cannot be loaded", e);
+        }
+    }
+
+    @Override
+    public BackendType getType() {
+        return BackendType.ONNX_RUNTIME;
+    }
+
+    @Override
+    public Classifications[] predict(FunctionInput input) throws TranslateException {
+        return predictBatch(Collections.singletonList(input)).get(0);
+    }
+
+    @Override
+    public List<Classifications[]> predictBatch(List<FunctionInput> inputs) throws TranslateException {
+        EncodedBatch batch = batchTranslator.encode(inputs);
+        long[] shape = {batch.getFunctionsCount(), batch.getLength()};
+        long start = System.nanoTime();
+        long startBytes = PipelineMetrics.allocatedBytes();
+        try (OnnxTensor ids = OnnxTensor.createTensor(environment, LongBuffer.wrap(batch.getIds()), shape);
+             OnnxTensor attentionMask = OnnxTensor.createTensor(environment,
+                     LongBuffer.wrap(batch.getAttentionMask()), shape);
+             OnnxTensor idMask = OnnxTensor.createTensor(environment, toRows(batch))) {
+            Map<String, OnnxTensor> feed = new LinkedHashMap<>();
+            feed.put(inputNames.get(0), ids);
+            feed.put(inputNames.get(1), attentionMask);
+            feed.put(inputNames.get(2), idMask);
+            feed.put(inputNames.get(3), idMask);
+            metrics.record(Stage.INPUT_TENSORS, start, startBytes);
+            ForwardPassEvent event = new ForwardPassEvent();
+            event.begin();
+            start = System.nanoTime();
+            startBytes = PipelineMetrics.allocatedBytes();
+            try (OrtSession.Result result = session.run(feed)) {
+                metrics.record(Stage.FORWARD_PASS, start, startBytes);
+                commitForwardPass(event, inputs, batch);
+                OnnxValue output = result.get(0);
+                if (!(output instanceof OnnxTensor) || ((OnnxTensor) output).getFloatBuffer() == null)
+                    throw new TranslateException("ONNX model should return a float tensor");
+                OnnxTensor probabilities = (OnnxTensor) output;
+                long[] outputShape = probabilities.getInfo().getShape();
+                FloatBuffer buffer = probabilities.getFloatBuffer();
+                float[] values = new float[buffer.remaining()];
+                buffer.get(values);
+                return batchTranslator.decode(batch.getRowsPerFunction(), values,
+                        (int) outputShape[outputShape.length - 1]);
+            }
+        } catch (OrtException e) {
+            throw new TranslateException(e);
+        }
+    }
+
+    /**
+     * Finishes event of forward pass. Fields are filled only if event is recorded, where
+     *
+     * @param event  is an event that was begun before forward pass
+     * @param inputs are functions of forward pass
+     * @param batch  is an encoded batch
+     */
+    private static void commitForwardPass(ForwardPassEvent event, List<FunctionInput> inputs, EncodedBatch batch) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.functionName = inputs.stream().map(FunctionInput::getFunctionName).collect(Collectors.joining(", "));
+            event.functionsCount = inputs.size();
+            event.tokensCount = batch.getTokensCount();
+            event.bucket = batch.getLength();
+            event.backend = BackendType.ONNX_RUNTIME.getDisplayName();
+            event.commit();
+        }
+    }
+
+    /**
+     * ONNX Runtime creates boolean tensors only from arrays of arrays
+     *
+     * @param batch is an encoded batch
+     * @return mask of parameters split into rows of functions
+     */
+    private static boolean[][] toRows(EncodedBatch batch) {
+        boolean[][] rows = new boolean[batch.getFunctionsCount()][batch.getLength()];
+        for (int i = 0; i < rows.length; i++)
+            System.arraycopy(batch.getIdMask(), i * batch.getLength(), rows[i], 0, batch.getLength());
+        return rows;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Environment is shared by all sessions of the process, so only session is closed
+     */
+    @Override
+    public void close() {
+        closeQuietly(session);
+    }
+
+    private static void closeQuietly(OrtSession session) {
+        try {
+            session.close();
+        } catch (OrtException ignored) {
+        }
+    }
+}
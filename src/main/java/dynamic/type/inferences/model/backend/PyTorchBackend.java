@@ -0,0 +1,136 @@
+package dynamic.type.inferences.model.backend;
+
+import ai.djl.Application;
+import ai.djl.Device;
+import ai.djl.MalformedModelException;
+import ai.djl.engine.Engine;
+import ai.djl.modality.Classifications;
+import ai.djl.ndarray.NDList;
+import ai.djl.repository.zoo.Criteria;
+import ai.djl.repository.zoo.ModelNotFoundException;
+import ai.djl.repository.zoo.ModelZoo;
+import ai.djl.repository.zoo.ZooModel;
+import ai.djl.translate.TranslateException;
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.model.runner.PredictorPool;
+import dynamic.type.inferences.model.runner.ThreadTuning;
+import dynamic.type.inferences.model.translator.BertBatchTranslator;
+import dynamic.type.inferences.model.translator.BertTranslator;
+import dynamic.type.inferences.model.translator.FunctionInput;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * TorchScript model run by DJL with PyTorch engine.
+ * <p>
+ * DJL predictors should not be shared between threads, so each prediction borrows one from the pool.
+ * Predictors of both pools use the same model.
+ */
+public class PyTorchBackend implements InferenceBackend {
+
+    public static final String ENGINE_NAME = "PyTorch";
+
+    private final ZooModel<NDList, NDList> model;
+    private final PredictorPool<FunctionInput, Classifications[]> predictors;
+    private final PredictorPool<List<FunctionInput>, List<Classifications[]>> batchPredictors;
+
+    /**
+     * Creation of backend over loaded model, where
+     *
+     * @param model           is a loaded model
+     * @param translator      is a translator of single functions
+     * @param batchTranslator is a translator of several functions at once
+     * @param poolSize        is a size of each predictor pool
+     */
+    public PyTorchBackend(ZooModel<NDList, NDList> model, BertTranslator translator,
+                          BertBatchTranslator batchTranslator, int poolSize) {
+        this.model = model;
+//        Predictors are created by pools when they are needed
+        this.predictors = new PredictorPool<>(() -> model.newPredictor(translator), poolSize);
+        this.batchPredictors = new PredictorPool<>(() -> model.newPredictor(batchTranslator), poolSize);
+    }
+
+    /**
+     * Loading of PyTorch native libraries. Numbers of threads are given to engine before it is loaded,
+     * see {@link ThreadTuning}, where
+     *
+     * @param interOpThreads is a number of inter-op threads, 0 means default
+     * @param intraOpThreads is a number of intra-op threads, 0 means default
+     * @return loaded engine
+     */
+    public static Engine loadEngine(int interOpThreads, int intraOpThreads) {
+        ThreadTuning.configureEngine(interOpThreads, intraOpThreads);
+        return Engine.getEngine(ENGINE_NAME);
+    }
+
+    /**
+     * Loading of model weights. Model itself works with arrays,
+     * translators are given to predictors, so model can be loaded before tokenizer is ready.
+     *
+     * @return factory of backend over loaded model
+     * @throws IOException             if model file cannot be read
+     * @throws ModelNotFoundException  DJL configuration did not find correct model for work. Never should happen
+     * @throws MalformedModelException The same
+     */
+    public static InferenceBackend.Factory load() throws IOException, ModelNotFoundException,
+            MalformedModelException {
+//        Define criteria for DJL model initialization
+        Criteria<NDList, NDList> criteria =
+                Criteria.builder()
+                        .optApplication(Application.NLP.SENTIMENT_ANALYSIS)
+                        .optDevice(Device.cpu())
+                        .optEngine(ENGINE_NAME)
+                        .setTypes(NDList.class, NDList.class)
+                        .optModelUrls(GlobalProjectInstances.MODEL_PATH_FOR_WORK)
+                        .build();
+        ZooModel<NDList, NDList> model = ModelZoo.loadModel(criteria);
+        return (translator, batchTranslator, concurrency) ->
+                new PyTorchBackend(model, translator, batchTranslator, concurrency);
+    }
+
+    @Override
+    public BackendType getType() {
+        return BackendType.PYTORCH;
+    }
+
+    @Override
+    public Classifications[] predict(FunctionInput input) throws TranslateException {
+        ThreadTuning.applyToCurrentThread();
+        return predictors.predict(input);
+    }
+
+    @Override
+    public List<Classifications[]> predictBatch(List<FunctionInput> inputs) throws TranslateException {
+        ThreadTuning.applyToCurrentThread();
+        return batchPredictors.predict(inputs);
+    }
+
+    @Override
+    public int getConcurrency() {
+        return predictors.getMaxSize();
+    }
+
+    /**
+     * Pool of predictors for single functions. Borrowing statistics show how often predictions wait for each other.
+     *
+     * @return pool of predictors
+     */
+    public PredictorPool<FunctionInput, Classifications[]> getPredictors() {
+        return predictors;
+    }
+
+    /**
+     * @return pool of predictors for several functions at once
+     */
+    public PredictorPool<List<FunctionInput>, List<Classifications[]>> getBatchPredictors() {
+        return batchPredictors;
+    }
+
+    @Override
+    public void close() {
+        predictors.close();
+        batchPredictors.close();
+        model.close();
+    }
+}
@@ -1,9 +1,12 @@
 package dynamic.type.inferences.model.loader;
 
+import com.dropbox.core.DbxDownloader;
 import com.dropbox.core.DbxException;
 import com.dropbox.core.DbxRequestConfig;
 import com.dropbox.core.v2.DbxClientV2;
+import com.dropbox.core.v2.files.FileMetadata;
 import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.metrics.events.ModelLoadEvent;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -14,6 +17,9 @@ import java.nio.file.Files;
 public class BertModelLoader {
 
     final Object sharedObject;
+//    Progress of the current download, total size is 0 until it is known
+    private volatile long downloadedBytes = 0;
+    private volatile long totalBytes = 0;
 
     /**
      * Default constructor with shared object for notifying other processes when model is loaded, where
@@ -35,6 +41,18 @@ public class BertModelLoader {
         String pathToLoad = GlobalProjectInstances.MODEL_PATH_FOR_WORK.replaceFirst("file:/", "");
 //        Again windows case
         pathToLoad = pathToLoad.contains(":/") ? pathToLoad: "/"+ pathToLoad;
+        loadTo(GlobalProjectInstances.MODEL_NAME, pathToLoad);
+    }
+
+    /**
+     * Loading of any model file from the DropBox (for example, ONNX export of the model), where
+     *
+     * @param modelName  is a name of file in the DropBox
+     * @param pathToLoad is a local path where file is saved
+     * @throws IOException  exception is throw if a by magic reason token not read
+     * @throws DbxException DropBox problems
+     */
+    public void loadTo(String modelName, String pathToLoad) throws IOException, DbxException {
 //         Model loading process with connection to DropBox api
         DbxRequestConfig config = new DbxRequestConfig("BertModelLoader");
 
@@ -48,17 +66,37 @@ public class BertModelLoader {
 
 //        DropBox client creation and loading process
         DbxClientV2 client = new DbxClientV2(config, token);
+        ModelLoadEvent event = new ModelLoadEvent();
+        event.begin();
         File file = new File(pathToLoad);
         Files.createDirectories(file.toPath().getParent());
         boolean success = file.createNewFile();
         OutputStream outputStream = new FileOutputStream(pathToLoad);
-        client
+        DbxDownloader<FileMetadata> downloader = client
                 .files()
-                .downloadBuilder(GlobalProjectInstances.MODEL_NAME)
-                .download(outputStream);
+                .downloadBuilder(modelName)
+                .start();
+        downloadedBytes = 0;
+        totalBytes = downloader.getResult().getSize();
+        downloader.download(outputStream, bytes -> downloadedBytes = bytes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.modelName = modelName;
+            event.path = pathToLoad;
+            event.bytes = file.length();
+            event.commit();
+        }
 //        When the model is loaded, then other processes should be notified.
         synchronized (sharedObject) {
             sharedObject.notify();
         }
     }
+
+    /**
+     * @return downloaded part of model file from 0 to 1 or -1 if size of file is not known yet
+     */
+    public double getDownloadProgress() {
+        long total = totalBytes;
+        return total > 0 ? Math.min(1.0, (double) downloadedBytes / total) : -1;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package dynamic.type.inferences.model.runner;
+
+import ai.djl.modality.Classifications.Classification;
+import ai.djl.translate.TranslateException;
+import com.jetbrains.python.psi.PyFunction;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Asynchronous predictions of one place of UI (completion, hover, ...), where only the latest request matters.
+ * When a new prediction is requested, the previous one is stale: it is cancelled, so it does not
+ * take place in the queue of predictions.
+ */
+public class LatestPrediction {
+
+    private final TorchBert torchBert;
+    private final AtomicReference<CompletableFuture<List<Classification>>> latest = new AtomicReference<>();
+
+    /**
+     * Simple constructor, where
+     *
+     * @param torchBert is the model instance
+     */
+    public LatestPrediction(TorchBert torchBert) {
+        this.torchBert = torchBert;
+    }
+
+    /**
+     * Starts prediction, cancels the previous one and waits for the result.
+     * Waiting is cancelled together with current progress indicator, see {@link TorchBert#awaitPrediction}.
+     * Must be called inside of read action.
+     *
+     * @param pyFunction is a function that parameters will be suggested
+     * @return the same as {@link TorchBert#predictOne(PyFunction)} or null if this prediction became stale
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    public List<Classification> predict(PyFunction pyFunction) throws TranslateException {
+        CompletableFuture<List<Classification>> prediction = torchBert.predictAsync(pyFunction);
+        CompletableFuture<List<Classification>> previous = latest.getAndSet(prediction);
+        if (previous != null)
+            previous.cancel(false);
+        try {
+            return torchBert.awaitPrediction(prediction);
+        } finally {
+            latest.compareAndSet(prediction, null);
+        }
+    }
+}
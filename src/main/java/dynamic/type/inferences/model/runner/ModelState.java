@@ -0,0 +1,17 @@
+package dynamic.type.inferences.model.runner;
+
+/**
+ * State of model inside of {@link TorchBert}
+ */
+public enum ModelState {
+//    Model was never loaded in this IDE session
+    NOT_LOADED,
+//    Model file is being downloaded from the DropBox
+    DOWNLOADING,
+//    Model and predictors are being created
+    LOADING,
+//    Model is ready for predictions
+    READY,
+//    Model was released after idle period or on low memory. It is loaded again by the next prediction
+    UNLOADED
+}
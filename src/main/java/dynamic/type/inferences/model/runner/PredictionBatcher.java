@@ -0,0 +1,210 @@
+package dynamic.type.inferences.model.runner;
+
+import ai.djl.modality.Classifications;
+import ai.djl.translate.TranslateException;
+import dynamic.type.inferences.metrics.Histogram;
+import dynamic.type.inferences.model.translator.FunctionInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micro-batching stage in front of the model. Requests that come within a short window
+ * (hover, completion and background work at the same time) are predicted together in one forward pass.
+ * <p>
+ * The window starts with the first request. Batch is sent to the model when the window ends
+ * or when there are enough requests for the maximum batch size. If no batch is being predicted,
+ * the first request is sent at once: there is nothing to wait for, so idle model never adds the window to latency.
+ * Requests that were cancelled while waiting are not predicted.
+ * <p>
+ * Sizes of batches, time of waiting in the queue, time of batch prediction and the whole time of request
+ * are recorded into histograms.
+ */
+public class PredictionBatcher {
+
+    /**
+     * Prediction of several functions at once, for example by {@link PredictorPool#predict}
+     */
+    @FunctionalInterface
+    public interface BatchPredictor {
+        List<Classifications[]> predict(List<FunctionInput> inputs) throws TranslateException;
+    }
+
+    private final BatchPredictor batchPredictor;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final long windowMicros;
+    private final int maxBatchSize;
+
+    private final Object lock = new Object();
+    private List<Request> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+//    Batches that are taken from pending, but their prediction is not finished yet
+    private int runningBatches;
+//    Requests that are submitted, but their batch is not predicted yet
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram queueMicros = new Histogram();
+    private final Histogram batchMicros = new Histogram();
+    private final Histogram requestMicros = new Histogram();
+
+    /**
+     * Batcher creation, where
+     *
+     * @param batchPredictor predicts collected batches
+     * @param executor       runs predictions of batches
+     * @param scheduler      ends windows
+     * @param windowMicros   is the time of collecting requests in microseconds
+     * @param maxBatchSize   is maximum number of functions in one batch
+     */
+    public PredictionBatcher(BatchPredictor batchPredictor, Executor executor, ScheduledExecutorService scheduler,
+                             long windowMicros, int maxBatchSize) {
+        this.batchPredictor = batchPredictor;
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Adds function to the current batch, where
+     *
+     * @param input is a function with its parameters
+     * @return future with predictions for each parameter. It can be cancelled if result is not needed anymore
+     */
+    public CompletableFuture<Classifications[]> submit(FunctionInput input) {
+        Request request = new Request(input);
+        queueDepth.incrementAndGet();
+        List<Request> batch = null;
+        synchronized (lock) {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize || pending.size() == 1 && runningBatches == 0) {
+                batch = takePending();
+            } else if (pending.size() == 1) {
+                scheduledFlush = scheduler.schedule(this::flush, windowMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+        if (batch != null)
+            execute(batch);
+        return request.future;
+    }
+
+    private void flush() {
+        List<Request> batch;
+        synchronized (lock) {
+            batch = takePending();
+        }
+        if (!batch.isEmpty())
+            execute(batch);
+    }
+
+    private List<Request> takePending() {
+        List<Request> batch = pending;
+        pending = new ArrayList<>();
+        if (!batch.isEmpty())
+            runningBatches++;
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void execute(List<Request> batch) {
+        executor.execute(() -> {
+            try {
+                predict(batch);
+            } finally {
+                synchronized (lock) {
+                    runningBatches--;
+                }
+            }
+        });
+    }
+
+    private void predict(List<Request> batch) {
+//        Cancelled requests are stale, nobody waits for them
+        List<Request> active = new ArrayList<>(batch.size());
+        List<FunctionInput> inputs = new ArrayList<>(batch.size());
+        long start = System.nanoTime();
+        queueDepth.addAndGet(-batch.size());
+        for (Request request : batch) {
+            if (!request.future.isDone()) {
+                active.add(request);
+                inputs.add(request.input);
+                queueMicros.record((start - request.submitted) / 1000);
+            }
+        }
+        if (active.isEmpty())
+            return;
+        batchSizes.record(active.size());
+        try {
+            List<Classifications[]> results = batchPredictor.predict(inputs);
+            for (int i = 0; i < active.size(); i++)
+                active.get(i).future.complete(results.get(i));
+        } catch (TranslateException | RuntimeException e) {
+            for (Request request : active)
+                request.future.completeExceptionally(e);
+        } finally {
+            long end = System.nanoTime();
+            batchMicros.record((end - start) / 1000);
+            for (Request request : active)
+                requestMicros.record((end - request.submitted) / 1000);
+        }
+    }
+
+    /**
+     * @return number of functions in each predicted batch
+     */
+    public Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * @return number of requests that wait for their batch: in the current window or in the queue of executor
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return time in microseconds from request to start of its batch prediction
+     */
+    public Histogram getQueueMicros() {
+        return queueMicros;
+    }
+
+    /**
+     * @return time in microseconds of batch prediction
+     */
+    public Histogram getBatchMicros() {
+        return batchMicros;
+    }
+
+    /**
+     * @return time in microseconds from request to its result: waiting and prediction together
+     */
+    public Histogram getRequestMicros() {
+        return requestMicros;
+    }
+
+    /**
+     * Function waiting for a batch
+     */
+    private static class Request {
+        private final FunctionInput input;
+        private final CompletableFuture<Classifications[]> future = new CompletableFuture<>();
+        private final long submitted = System.nanoTime();
+
+        Request(FunctionInput input) {
+            this.input = input;
+        }
+    }
+}
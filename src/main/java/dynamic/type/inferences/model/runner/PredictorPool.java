@@ -0,0 +1,202 @@
+package dynamic.type.inferences.model.runner;
+
+import ai.djl.inference.Predictor;
+import ai.djl.translate.TranslateException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of predictors over one loaded model. DJL predictors should not be shared between threads,
+ * so each thread borrows its own predictor for the time of prediction.
+ * <p>
+ * Predictors are created lazily: no more than needed by concurrent callers and no more than maximum size.
+ * When all predictors are busy, callers wait for the first returned one.
+ * <p>
+ * Borrowing is counted, so contention can be seen: how many borrows waited and how long.
+ *
+ * @param <I> type of predictor input
+ * @param <O> type of predictor output
+ */
+public class PredictorPool<I, O> implements AutoCloseable {
+
+    private final Supplier<Predictor<I, O>> factory;
+    private final int maxSize;
+    private final BlockingQueue<Predictor<I, O>> idle;
+    private final List<Predictor<I, O>> created = new ArrayList<>();
+    private final AtomicInteger createdCount = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Pool creation, where
+     *
+     * @param factory creates a new predictor, for example model::newPredictor
+     * @param maxSize is maximum number of predictors
+     */
+    public PredictorPool(Supplier<Predictor<I, O>> factory, int maxSize) {
+        if (maxSize < 1)
+            throw new IllegalArgumentException("Pool size should be positive: " + maxSize);
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    /**
+     * Default size of pool. PyTorch uses several threads for one forward pass,
+     * so there is no sense in having a predictor for each core.
+     *
+     * @return half of available cores, but at least one
+     */
+    public static int getDefaultSize() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+
+    /**
+     * Takes an idle predictor, creates a new one if there is a place or waits for the first returned one.
+     * Each borrowed predictor must be returned by {@link #release(Predictor)}.
+     *
+     * @return predictor that is used only by the caller
+     * @throws InterruptedException if thread was interrupted during waiting
+     */
+    public Predictor<I, O> borrow() throws InterruptedException {
+        borrows.increment();
+        Predictor<I, O> predictor = idle.poll();
+        if (predictor == null)
+            predictor = tryCreate();
+        if (predictor == null) {
+            waits.increment();
+            long start = System.nanoTime();
+            predictor = idle.take();
+            long waited = System.nanoTime() - start;
+            waitNanos.add(waited);
+            maxWaitNanos.accumulate(waited);
+        }
+        inUse.incrementAndGet();
+        return predictor;
+    }
+
+    /**
+     * Returns borrowed predictor to the pool
+     *
+     * @param predictor is a predictor from {@link #borrow()}
+     */
+    public void release(Predictor<I, O> predictor) {
+        inUse.decrementAndGet();
+        idle.offer(predictor);
+    }
+
+    /**
+     * Prediction with borrowed predictor, where
+     *
+     * @param input is an input of predictor
+     * @return output of predictor
+     * @throws TranslateException if prediction failed or thread was interrupted during waiting for predictor
+     */
+    public O predict(I input) throws TranslateException {
+        Predictor<I, O> predictor;
+        try {
+            predictor = borrow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TranslateException("Interrupted while waiting for predictor", e);
+        }
+        try {
+            return predictor.predict(input);
+        } finally {
+            release(predictor);
+        }
+    }
+
+    private Predictor<I, O> tryCreate() {
+        while (true) {
+            int count = createdCount.get();
+            if (count >= maxSize)
+                return null;
+            if (createdCount.compareAndSet(count, count + 1))
+                break;
+        }
+        Predictor<I, O> predictor;
+        try {
+            predictor = factory.get();
+        } catch (RuntimeException e) {
+            createdCount.decrementAndGet();
+            throw e;
+        }
+        synchronized (created) {
+            created.add(predictor);
+        }
+        return predictor;
+    }
+
+    /**
+     * @return maximum number of predictors
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of already created predictors
+     */
+    public int getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * @return number of predictors that are borrowed now
+     */
+    public int getInUseCount() {
+        return inUse.get();
+    }
+
+    /**
+     * @return number of all borrows
+     */
+    public long getBorrowsCount() {
+        return borrows.sum();
+    }
+
+    /**
+     * @return number of borrows that waited because all predictors were busy
+     */
+    public long getWaitsCount() {
+        return waits.sum();
+    }
+
+    /**
+     * @return total time of waiting for predictors in milliseconds
+     */
+    public double getTotalWaitMillis() {
+        return waitNanos.sum() / 1e6;
+    }
+
+    /**
+     * @return the longest waiting for predictor in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    /**
+     * Closes all created predictors. Pool must not be used after that.
+     */
+    @Override
+    public void close() {
+        synchronized (created) {
+            created.forEach(Predictor::close);
+            created.clear();
+        }
+        idle.clear();
+    }
+}
@@ -0,0 +1,113 @@
+package dynamic.type.inferences.model.runner;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Independent steps of model initialization that run at the same time.
+ * <p>
+ * Each phase is timed. Its duration is written to the log and shown in the progress indicator (if there is one),
+ * so it is seen what makes the plugin start slowly.
+ * <p>
+ * DJL finds engines and models through the context class loader, so each phase runs with the plugin class loader
+ * as {@link TorchBert#modelInit()} does.
+ */
+public class StartupPhases {
+
+    private static final Logger LOG = Logger.getInstance(StartupPhases.class);
+
+    /**
+     * One step of initialization
+     *
+     * @param <T> type of step result
+     */
+    @FunctionalInterface
+    public interface Phase<T> {
+        T run() throws Exception;
+    }
+
+    private final Executor executor;
+    private final ProgressIndicator indicator;
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+    private final long start = System.nanoTime();
+
+    /**
+     * Creation of phases, where
+     *
+     * @param executor  runs phases
+     * @param indicator shows finished phases. Can be null
+     */
+    public StartupPhases(Executor executor, ProgressIndicator indicator) {
+        this.executor = executor;
+        this.indicator = indicator;
+    }
+
+    /**
+     * Starts phase on the executor, where
+     *
+     * @param name  is a name of phase for log and indicator
+     * @param phase is a step of initialization
+     * @param <T>   type of step result
+     * @return future with result of phase. If phase fails, future fails with {@link CompletionException}
+     */
+    public <T> CompletableFuture<T> run(String name, Phase<T> phase) {
+        return CompletableFuture.supplyAsync(() -> runTimed(name, phase), executor);
+    }
+
+    /**
+     * Runs phase on the current thread, but times it as other phases, where
+     *
+     * @param name  is a name of phase for log and indicator
+     * @param phase is a step of initialization
+     * @param <T>   type of step result
+     * @return result of phase
+     */
+    public <T> T runTimed(String name, Phase<T> phase) {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(StartupPhases.class.getClassLoader());
+        long phaseStart = System.nanoTime();
+        try {
+            return phase.run();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        } finally {
+            thread.setContextClassLoader(previous);
+            finished(name, (System.nanoTime() - phaseStart) / 1_000_000);
+        }
+    }
+
+    private void finished(String name, long millis) {
+        synchronized (durations) {
+            durations.put(name, millis);
+        }
+        LOG.info("VaDima startup: " + name + " took " + millis + " ms");
+        if (indicator != null)
+            indicator.setText2(name + " took " + millis + " ms");
+    }
+
+    /**
+     * @return milliseconds since creation of phases
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * @return duration in milliseconds of each finished phase in order of finishing
+     */
+    public Map<String, Long> getDurations() {
+        synchronized (durations) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(durations));
+        }
+    }
+}
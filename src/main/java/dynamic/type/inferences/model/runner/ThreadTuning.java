@@ -0,0 +1,146 @@
+package dynamic.type.inferences.model.runner;
+
+import ai.djl.pytorch.jni.JniUtils;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * Threads of PyTorch. Inter-op threads run independent operators at the same time,
+ * intra-op threads split one operator (matrix multiplication) into parts.
+ * <p>
+ * By default PyTorch uses all cores for each forward pass. Several predictors work at the same time
+ * and IntelliJ indexes files in parallel, so defaults are a bad choice: threads compete for cores.
+ * <p>
+ * Inter-op threads can be set only before the engine is loaded, so they are passed as DJL system properties.
+ * Intra-op threads can be changed at any time. OpenMP keeps this number for each thread, so it is applied
+ * by each prediction thread before prediction, see {@link #applyToCurrentThread()}.
+ * <p>
+ * Auto-tuning tries candidates only on its own threads, see {@link #overrideForCurrentThread(int)},
+ * so predictions of other threads never run with a candidate.
+ */
+public final class ThreadTuning {
+
+    private static final String INTEROP_PROPERTY = "ai.djl.pytorch.num_interop_threads";
+    private static final String INTRAOP_PROPERTY = "ai.djl.pytorch.num_threads";
+//    Candidate is chosen by throughput only if its single prediction is not much slower than the fastest one
+    private static final double LATENCY_TOLERANCE = 1.2;
+
+//    0 means default of PyTorch
+    private static volatile int intraOpThreads;
+    private static final ThreadLocal<Integer> APPLIED = ThreadLocal.withInitial(() -> 0);
+//    Number of threads for the current thread only, 0 means that the common number is used
+    private static final ThreadLocal<Integer> OVERRIDE = ThreadLocal.withInitial(() -> 0);
+//    Number of threads that PyTorch gave to the thread before the first change. It is restored when 0 is set again
+    private static final ThreadLocal<Integer> ORIGINAL = ThreadLocal.withInitial(JniUtils::getNumThreads);
+
+    private ThreadTuning() {
+    }
+
+    /**
+     * Settings for engine that is not loaded yet, where
+     *
+     * @param interOpThreads is a number of inter-op threads, 0 means default
+     * @param intraOpThreads is a number of intra-op threads, 0 means default
+     */
+    public static void configureEngine(int interOpThreads, int intraOpThreads) {
+        if (interOpThreads > 0)
+            System.setProperty(INTEROP_PROPERTY, String.valueOf(interOpThreads));
+        if (intraOpThreads > 0)
+            System.setProperty(INTRAOP_PROPERTY, String.valueOf(intraOpThreads));
+        setIntraOpThreads(intraOpThreads);
+    }
+
+    /**
+     * Changes number of intra-op threads for all next predictions, where
+     *
+     * @param threads is a number of threads, 0 means default
+     */
+    public static void setIntraOpThreads(int threads) {
+        intraOpThreads = threads;
+    }
+
+    /**
+     * @return number of intra-op threads for predictions, 0 means default
+     */
+    public static int getIntraOpThreads() {
+        return intraOpThreads;
+    }
+
+    /**
+     * Changes number of intra-op threads only for the current thread and applies it at once.
+     * It is used by auto-tuning, so the common number is not changed while candidates are compared. Where
+     *
+     * @param threads is a number of threads, must be positive
+     */
+    public static void overrideForCurrentThread(int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("Number of threads must be positive, but it is " + threads);
+        OVERRIDE.set(threads);
+        applyToCurrentThread();
+    }
+
+    /**
+     * Removes number of threads set by {@link #overrideForCurrentThread(int)}, so the current thread
+     * gets back the common number. Threads of shared pools must call it when they finish the work with override.
+     */
+    public static void clearCurrentThreadOverride() {
+        OVERRIDE.remove();
+        applyToCurrentThread();
+    }
+
+    /**
+     * Applies number of intra-op threads to the current thread if it was not applied yet.
+     * If the number is 0 again, the thread gets back the number it had before the first change.
+     * It costs one comparison when nothing changed, so it is called before each prediction.
+     */
+    public static void applyToCurrentThread() {
+        int override = OVERRIDE.get();
+        int threads = override > 0 ? override : intraOpThreads;
+        if (APPLIED.get() == threads)
+            return;
+        if (threads > 0) {
+//            Default of the thread is read before it is changed for the first time
+            ORIGINAL.get();
+            JniUtils.setNumThreads(threads);
+        } else {
+            JniUtils.setNumThreads(ORIGINAL.get());
+        }
+        APPLIED.set(threads);
+    }
+
+    /**
+     * Numbers of intra-op threads that are compared by auto-tuning, where
+     *
+     * @param cores is a number of available cores
+     * @return powers of two below cores, half of cores and all cores, without repeats
+     */
+    public static int[] getCandidates(int cores) {
+        TreeSet<Integer> candidates = new TreeSet<>();
+        for (int threads = 1; threads < cores && threads <= 8; threads *= 2)
+            candidates.add(threads);
+        candidates.add(Math.max(1, cores / 2));
+        candidates.add(Math.max(1, cores));
+        return candidates.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Choice of the best candidate, where
+     *
+     * @param candidates     are numbers of intra-op threads
+     * @param latencyMillis  are average latencies of a single prediction for each candidate
+     * @param predictsPerSec are throughputs of concurrent predictions for each candidate
+     * @return candidate with the best throughput among candidates with latency close to the best one
+     */
+    public static int choose(int[] candidates, double[] latencyMillis, double[] predictsPerSec) {
+        double bestLatency = Arrays.stream(latencyMillis).min().orElse(0);
+        int best = -1;
+        for (int i = 0; i < candidates.length; i++) {
+            if (latencyMillis[i] > bestLatency * LATENCY_TOLERANCE)
+                continue;
+            if (best < 0 || predictsPerSec[i] > predictsPerSec[best])
+                best = i;
+        }
+        return candidates[best];
+    }
+}
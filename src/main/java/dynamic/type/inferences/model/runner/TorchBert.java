@@ -1,24 +1,41 @@
 package dynamic.type.inferences.model.runner;
 
-import ai.djl.Application;
-import ai.djl.Device;
 import ai.djl.MalformedModelException;
 import ai.djl.engine.EngineException;
-import ai.djl.inference.Predictor;
 import ai.djl.modality.Classifications;
 import ai.djl.modality.Classifications.Classification;
 import ai.djl.modality.nlp.SimpleVocabulary;
-import ai.djl.repository.zoo.Criteria;
 import ai.djl.repository.zoo.ModelNotFoundException;
-import ai.djl.repository.zoo.ModelZoo;
-import ai.djl.repository.zoo.ZooModel;
 import ai.djl.translate.TranslateException;
 import com.dropbox.core.DbxException;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.util.LowMemoryWatcher;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import com.jetbrains.python.psi.PyFunction;
 import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.cache.BoundedConcurrentCache;
+import dynamic.type.inferences.cache.PersistentPredictionStore;
+import dynamic.type.inferences.cache.PredictionKey;
+import dynamic.type.inferences.cache.TopKPrediction;
+import dynamic.type.inferences.metrics.PipelineMetrics;
+import dynamic.type.inferences.metrics.PipelineMetrics.Stage;
+import dynamic.type.inferences.metrics.RecentRequests;
+import dynamic.type.inferences.metrics.ResidentMemory;
+import dynamic.type.inferences.metrics.events.PredictionEvent;
+import dynamic.type.inferences.model.backend.BackendBenchmark;
+import dynamic.type.inferences.model.backend.BackendType;
+import dynamic.type.inferences.model.backend.InferenceBackend;
+import dynamic.type.inferences.model.backend.OnnxRuntimeBackend;
+import dynamic.type.inferences.model.backend.PyTorchBackend;
 import dynamic.type.inferences.model.loader.BertModelLoader;
 import dynamic.type.inferences.model.runner.tokenizer.ModelBertFullTokenizer;
+import dynamic.type.inferences.model.translator.BertBatchTranslator;
 import dynamic.type.inferences.model.translator.BertTranslator;
+import dynamic.type.inferences.model.translator.FunctionInput;
+import dynamic.type.inferences.startUpActivity.windowOnStartUp.ModelDoNotShowOption;
 
 import java.io.BufferedReader;
 import java.io.File;
@@ -28,7 +45,22 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 
@@ -38,9 +70,66 @@ import java.util.stream.DoubleStream;
  */
 public class TorchBert {
 
+    private static final Logger LOG = Logger.getInstance(TorchBert.class);
+
+//    How often waiting for asynchronous prediction checks if it was cancelled
+    private static final long CANCELLATION_CHECK_MILLIS = 20;
+//    How often idle time of model is checked
+    private static final long IDLE_CHECK_MINUTES = 1;
+//    TorchScript optimizes graph after profiling runs, so each length is predicted several times
+    private static final int WARM_UP_ITERATIONS = 3;
+//    Threads are tuned on a typical length of function
+    private static final int TUNING_BUCKET = 128;
+    private static final int TUNING_ITERATIONS = 5;
+
+    /**
+     * Work with loaded model, which is guaranteed not to be unloaded until it is finished
+     *
+     * @param <T> type of result
+     */
+    @FunctionalInterface
+    private interface ModelCall<T> {
+        T run() throws TranslateException;
+    }
+
     private boolean initialized = false;
-    private Predictor<String, Classifications> predictor;
+    private volatile ModelState modelState = ModelState.NOT_LOADED;
+//    Predictions hold read lock, so model is never unloaded under them
+    private final ReadWriteLock modelLock = new ReentrantReadWriteLock();
+    private volatile long lastUseNanos = System.nanoTime();
+//    Backend is chosen in settings. It is read once, so another backend is used after restart of IDE
+    private BackendType backendType;
+    private InferenceBackend backend;
+//    Watcher is kept by weak reference inside of IntelliJ, so the field keeps it alive
+    private LowMemoryWatcher lowMemoryWatcher;
+    private ScheduledFuture<?> idleCheck;
+//    Asynchronous predictions are run here. There are as many threads as predictors
+    private ExecutorService predictionExecutor;
+//    Asynchronous predictions that come at the same time are predicted together. Null if batching is disabled
+    private PredictionBatcher batcher;
+    private ScheduledExecutorService batchScheduler;
+//    Asynchronous predictions that are not finished yet: waiting for batch or predictor and running
+    private final AtomicInteger pendingPredictions = new AtomicInteger();
     private BertTranslator bertTranslator;
+    private BertBatchTranslator batchTranslator;
+//    Hover and completion ask for the same function many times. Predictions are kept by content of function,
+//    so a changed function gets a new key and is predicted again. Content is enough for a key only because
+//    paddings are masked: function gets the same prediction alone and in any batch, see BertTranslator.encode
+    private final BoundedConcurrentCache<PredictionKey, TopKPrediction> predictionCache =
+            new BoundedConcurrentCache<>(GlobalProjectInstances.PREDICTION_CACHE_SIZE);
+//    Predictions from previous IDE sessions. Null if store cannot be opened, then only memory cache is used
+    private volatile PersistentPredictionStore predictionStore;
+    private ModelBertFullTokenizer tokenizer;
+    private final PipelineMetrics metrics = PipelineMetrics.getInstance();
+    private final RecentRequests recentRequests = new RecentRequests(GlobalProjectInstances.RECENT_REQUESTS_WINDOW,
+            GlobalProjectInstances.SLOW_REQUESTS_TO_KEEP, GlobalProjectInstances.SLOW_REQUEST_MILLIS);
+
+//    Durations of initialization phases, see StartupPhases
+    private volatile Map<String, Long> startupTimings = Collections.emptyMap();
+    private volatile long startupMillis;
+    private volatile long warmUpMillis;
+//    Model is READY during warm-up, so it is a separate flag
+    private volatile boolean warmingUp;
 
     private final Object sharedObject = new Object();
     private final BertModelLoader loader = new BertModelLoader(sharedObject);
@@ -85,8 +174,28 @@ public class TorchBert {
      * @throws DbxException            - DropBox issues
      * @throws InterruptedException    thread problems
      */
-    public synchronized void modelInit() throws IOException, MalformedModelException,
+    public void modelInit() throws IOException, MalformedModelException,
             ModelNotFoundException, URISyntaxException, DbxException, InterruptedException {
+        modelInit(null);
+    }
+
+    /**
+     * The same as {@link #modelInit()}, but durations of initialization phases are shown in the given indicator.
+     * If model is already initialized, nothing is done.
+     *
+     * @param indicator is an indicator of initialization task. Can be null
+     * @throws IOException             - can occur from reading model vocabulary; token from DropBox
+     * @throws MalformedModelException - loading model with DJL
+     * @throws ModelNotFoundException  - the same
+     * @throws URISyntaxException      - parsing URI from string for reading files data
+     * @throws DbxException            - DropBox issues
+     * @throws InterruptedException    thread problems
+     */
+    public synchronized void modelInit(ProgressIndicator indicator) throws IOException, MalformedModelException,
+            ModelNotFoundException, URISyntaxException, DbxException, InterruptedException {
+//        Startup activity runs for each opened project, but the model is one for all of them
+        if (isInitialized())
+            return;
 //        Official "not a bug a feature"
         ClassLoader current = Thread.currentThread().getContextClassLoader();
         try {
@@ -97,21 +206,165 @@ public class TorchBert {
 //            All processes are run at start-up including checking if the model is loaded.
 //            If model exists - do needed work: create predictor (instance for predicting)
 //            and notify threads about model preparedness
-            String modelPath = GlobalProjectInstances.MODEL_PATH_FOR_WORK.replaceFirst("file:/", "");
-            modelPath = modelPath.contains(":/") ? modelPath: "/"+ modelPath;
-            File modelFile = new File(modelPath);
+            backendType = BackendType.fromName(ModelDoNotShowOption.getInstance().getState().backend);
+            File modelFile = new File(backendType.getModelPath());
             if (modelFile.exists()) {
-                createPredictorAndSetInitialized();
+                createPredictorAndSetInitialized(indicator);
             } else {
 //                If there is no model - firstly load it and do the same as written above
-                loader.loadTo();
+                modelState = ModelState.DOWNLOADING;
+                try {
+                    loader.loadTo(backendType.getModelName(), backendType.getModelPath());
+                } catch (IOException | DbxException e) {
+                    modelState = ModelState.NOT_LOADED;
+                    throw e;
+                }
                 synchronized (sharedObject) {
-                    createPredictorAndSetInitialized();
+                    createPredictorAndSetInitialized(indicator);
                 }
             }
+            AppExecutorUtil.getAppExecutorService().execute(this::afterInit);
         }
     }
 
+    /**
+     * Optional background work after model initialization: warm-up and then auto-tuning of threads.
+     * Tuning measures warmed model, so it goes second. It is only an optimization, so failure is not reported
+     */
+    private void afterInit() {
+        ModelDoNotShowOption.VaDimaState state = ModelDoNotShowOption.getInstance().getState();
+        try {
+            if (state.warmUp)
+                warmUp();
+            int cores = Runtime.getRuntime().availableProcessors();
+            if (backendType == BackendType.PYTORCH && state.autoTuneThreads && state.intraOpThreads == 0
+                    && (state.tunedIntraOpThreads == 0 || state.tunedForCores != cores))
+                autoTuneThreads();
+        } catch (TranslateException | RuntimeException ignored) {
+        }
+    }
+
+    /**
+     * The first predictions are much slower than the next ones: PyTorch initializes itself lazily,
+     * TorchScript profiles graphs during the first runs and Java code of translators is not compiled yet.
+     * Warm-up runs synthetic functions of each length bucket through single and batch predictors,
+     * so the first real prediction is already fast. Results are not cached.
+     *
+     * @return milliseconds of warm-up
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    public long warmUp() throws TranslateException {
+        long start = System.nanoTime();
+        warmingUp = true;
+        try {
+            withModel(() -> {
+                for (int bucket : GlobalProjectInstances.SEQUENCE_BUCKETS) {
+                    FunctionInput input = createBenchmarkInput(bucket);
+                    for (int i = 0; i < WARM_UP_ITERATIONS; i++)
+                        backend.predict(input);
+                    backend.predictBatch(Arrays.asList(input, input));
+                }
+                return null;
+            });
+        } finally {
+            warmingUp = false;
+        }
+        warmUpMillis = (System.nanoTime() - start) / 1_000_000;
+        LOG.info("VaDima model warm-up took " + warmUpMillis + " ms");
+        return warmUpMillis;
+    }
+
+    /**
+     * Auto-tuning of PyTorch intra-op threads for this machine. Each candidate from
+     * {@link ThreadTuning#getCandidates(int)} is measured twice: latency of one prediction
+     * and throughput of as many concurrent predictions as there are predictors.
+     * Predictions of user wait until tuning ends, so they do not compete with measurements for cores,
+     * and candidates are applied only to threads of tuning. The best one is applied at once and remembered
+     * in settings, so tuning is done only once (and again if number of cores changes). Only PyTorch backend is tuned.
+     *
+     * @return chosen number of intra-op threads
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    public int autoTuneThreads() throws TranslateException {
+        if (backendType != BackendType.PYTORCH)
+            throw new IllegalStateException("Threads are tuned only for " + BackendType.PYTORCH);
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] candidates = ThreadTuning.getCandidates(cores);
+        double[] latencyMillis = new double[candidates.length];
+        double[] predictsPerSec = new double[candidates.length];
+        int chosen = withModelExclusively(() -> {
+            FunctionInput input = createBenchmarkInput(TUNING_BUCKET);
+            int workers = backend.getConcurrency();
+//            Prediction executor cannot be used: its threads wait for the model lock that tuning holds
+            ExecutorService tuningExecutor =
+                    AppExecutorUtil.createBoundedApplicationPoolExecutor("VaDima threads tuning", workers);
+            try {
+                for (int i = 0; i < candidates.length; i++) {
+                    int threads = candidates[i];
+                    ThreadTuning.overrideForCurrentThread(threads);
+                    backend.predict(input);
+                    long start = System.nanoTime();
+                    for (int k = 0; k < TUNING_ITERATIONS; k++)
+                        backend.predict(input);
+                    latencyMillis[i] = (System.nanoTime() - start) / 1e6 / TUNING_ITERATIONS;
+
+                    List<CompletableFuture<Void>> runs = new ArrayList<>(workers);
+                    start = System.nanoTime();
+                    for (int w = 0; w < workers; w++)
+                        runs.add(CompletableFuture.runAsync(() -> {
+//                            Threads of the pool are shared, so they get back the common number after tuning
+                            ThreadTuning.overrideForCurrentThread(threads);
+                            try {
+                                for (int k = 0; k < TUNING_ITERATIONS; k++)
+                                    backend.predict(input);
+                            } catch (TranslateException e) {
+                                throw new CompletionException(e);
+                            } finally {
+                                ThreadTuning.clearCurrentThreadOverride();
+                            }
+                        }, tuningExecutor));
+                    CompletableFuture.allOf(runs.toArray(new CompletableFuture[0])).join();
+                    predictsPerSec[i] = workers * TUNING_ITERATIONS / ((System.nanoTime() - start) / 1e9);
+                    LOG.info("VaDima threads tuning: " + threads + " intra-op threads - "
+                            + String.format("%.1f ms, %.2f predictions/s", latencyMillis[i], predictsPerSec[i]));
+                }
+            } catch (CompletionException e) {
+                throw new TranslateException(e.getCause());
+            } finally {
+                ThreadTuning.clearCurrentThreadOverride();
+                tuningExecutor.shutdown();
+            }
+            return ThreadTuning.choose(candidates, latencyMillis, predictsPerSec);
+        });
+        ThreadTuning.setIntraOpThreads(chosen);
+        ModelDoNotShowOption.VaDimaState state = ModelDoNotShowOption.getInstance().getState();
+        state.tunedIntraOpThreads = chosen;
+        state.tunedForCores = cores;
+        LOG.info("VaDima threads tuning: chosen " + chosen + " intra-op threads");
+        return chosen;
+    }
+
+    /**
+     * Number of intra-op threads from settings: chosen by user or by auto-tuning on this machine
+     *
+     * @return number of threads, 0 means default of PyTorch
+     */
+    private static int getIntraOpThreadsSetting() {
+        ModelDoNotShowOption.VaDimaState state = ModelDoNotShowOption.getInstance().getState();
+        if (state.intraOpThreads > 0)
+            return state.intraOpThreads;
+        if (state.autoTuneThreads && state.tunedForCores == Runtime.getRuntime().availableProcessors())
+            return state.tunedIntraOpThreads;
+        return 0;
+    }
+
+    /**
+     * @return milliseconds of the last warm-up or 0 if there was no warm-up
+     */
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
     /**
      * Predictor creation for stable model work.
      * <p>
@@ -126,12 +379,276 @@ public class TorchBert {
      */
     public void createPredictor() throws IOException, ModelNotFoundException,
             MalformedModelException, DbxException {
+        createPredictor(null);
+    }
+
+    /**
+     * The same as {@link #createPredictor()}, but initialization is split into phases.
+     * <p>
+     * Independent phases run at the same time: vocabulary, BPE merges, ranks, prediction store and
+     * backend with model weights. Tokenizer waits for vocabulary and merges, backend waits for everything.
+     * Duration of each phase and the whole time until model is ready are written to the log
+     * and can be taken from {@link #getStartupTimings()}.
+     *
+     * @param indicator shows durations of phases. Can be null
+     * @throws IOException             If vocabulary (file with recognizable tokens) not found
+     * @throws ModelNotFoundException  DJL configuration did not find correct model for work. Never should happen
+     * @throws MalformedModelException The same
+     * @throws DbxException            DropBox issue. More details below
+     */
+    public void createPredictor(ProgressIndicator indicator) throws IOException, ModelNotFoundException,
+            MalformedModelException, DbxException {
+        modelState = ModelState.LOADING;
+        if (backendType == null)
+            backendType = BackendType.fromName(ModelDoNotShowOption.getInstance().getState().backend);
+        StartupPhases phases = new StartupPhases(AppExecutorUtil.getAppExecutorService(), indicator);
         try {
 //            Create model vocabulary and add reserved tokens.
-            BufferedReader brVocab = new BufferedReader(
-                    new InputStreamReader(GlobalProjectInstances.URL_VOCAB.openStream()));
+            CompletableFuture<SimpleVocabulary> vocabulary = phases.run("Vocabulary", TorchBert::loadVocabulary);
+//            Merge table is mapped once and shared by the tokenizer
+            CompletableFuture<?> merges = phases.run("BPE merges", GlobalProjectInstances::getGpt2Tokenizer);
+//            Get all predictable types from file.
+            CompletableFuture<List<String>> ranks = phases.run("Ranks", GlobalProjectInstances::getRanksFromFile);
+            CompletableFuture<?> store = phases.run("Prediction store", () -> {
+                openPredictionStore();
+                return predictionStore;
+            });
+            CompletableFuture<InferenceBackend.Factory> backendFactory = loadBackend(backendType, phases);
+
+//            Create tokenizer from the vocabulary and create translator. About the last one:
+//            more details in class itself.
+            SimpleVocabulary loadedVocabulary = vocabulary.join();
+            merges.join();
+            tokenizer = phases.runTimed("Tokenizer", () -> new ModelBertFullTokenizer(loadedVocabulary));
+            bertTranslator = new BertTranslator(tokenizer, ranks.join());
+            batchTranslator = new BertBatchTranslator(tokenizer, ranks.join());
+            InferenceBackend.Factory factory = backendFactory.join();
+            store.join();
+            int poolSize = getPredictorPoolSize();
+            backend = factory.create(bertTranslator, batchTranslator, poolSize);
+            if (predictionExecutor == null)
+                predictionExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor("VaDima predictions", poolSize);
+            ModelDoNotShowOption.VaDimaState state = ModelDoNotShowOption.getInstance().getState();
+//            Batcher is kept after reload of model, it always uses the current pool
+            if (state.batchWindowMillis > 0 && batcher == null) {
+                batchScheduler = AppExecutorUtil.createBoundedScheduledExecutorService("VaDima batcher", 1);
+                int maxBatchSize = state.maxBatchSize > 0 ? state.maxBatchSize : GlobalProjectInstances.MAX_BATCH_SIZE;
+                batcher = new PredictionBatcher(inputs -> withModel(() -> backend.predictBatch(inputs)),
+                        predictionExecutor, batchScheduler,
+                        TimeUnit.MILLISECONDS.toMicros(state.batchWindowMillis), maxBatchSize);
+            }
+            startUnloadWatchers();
+            lastUseNanos = System.nanoTime();
+            modelState = ModelState.READY;
+            startupTimings = phases.getDurations();
+            startupMillis = phases.getElapsedMillis();
+            LOG.info("VaDima model is ready on " + backendType + " in " + startupMillis + " ms");
+        } catch (CompletionException e) {
+            modelState = ModelState.NOT_LOADED;
+            rethrowStartupFailure(e.getCause(), indicator);
+        } catch (EngineException ignored) {
+            reloadModel(indicator);
+        }
+    }
+
+    /**
+     * Model keeps hundreds of megabytes of native memory. It is released if it is not used
+     * for the time from settings or when IntelliJ has low memory. Both watchers are started once.
+     */
+    private void startUnloadWatchers() {
+        if (lowMemoryWatcher == null)
+            lowMemoryWatcher = LowMemoryWatcher.register(() -> {
+                if (unload())
+                    LOG.info("VaDima model is unloaded because of low memory");
+            });
+        if (idleCheck == null)
+            idleCheck = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(
+                    this::unloadIfIdle, IDLE_CHECK_MINUTES, IDLE_CHECK_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Unloads model if it was not used longer than allowed in settings. 0 in settings means never.
+     */
+    private void unloadIfIdle() {
+        int idleMinutes = ModelDoNotShowOption.getInstance().getState().unloadAfterIdleMinutes;
+        if (idleMinutes <= 0 || modelState != ModelState.READY)
+            return;
+        if (System.nanoTime() - lastUseNanos > TimeUnit.MINUTES.toNanos(idleMinutes) && unload())
+            LOG.info("VaDima model is unloaded after " + idleMinutes + " idle minutes");
+    }
 
-            SimpleVocabulary vocabulary = SimpleVocabulary.builder()
+    /**
+     * Releases model and its backend. Caches, tokenizer and executors are kept, so the next prediction
+     * only loads the model again. Model is not unloaded while somebody predicts.
+     *
+     * @return true if model was unloaded, false if it was not loaded or was busy
+     */
+    public boolean unload() {
+        if (!modelLock.writeLock().tryLock())
+            return false;
+        try {
+            if (modelState != ModelState.READY)
+                return false;
+            modelState = ModelState.UNLOADED;
+            backend.close();
+            backend = null;
+            return true;
+        } finally {
+            modelLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs work with model. If model was unloaded, it is loaded again and the caller waits for it.
+     *
+     * @param call is a work with backend
+     * @param <T>  type of result
+     * @return result of work
+     * @throws TranslateException if prediction failed or model cannot be loaded
+     */
+    private <T> T withModel(ModelCall<T> call) throws TranslateException {
+        while (true) {
+            ensureLoaded();
+            modelLock.readLock().lock();
+            try {
+//                Model could be unloaded between loading and locking, then it is loaded again
+                if (modelState == ModelState.READY) {
+                    lastUseNanos = System.nanoTime();
+                    return call.run();
+                }
+            } finally {
+                modelLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * The same as {@link #withModel(ModelCall)}, but nothing else works with model at the same time:
+     * predictions wait until the call ends. It is for measurements that other predictions would distort.
+     *
+     * @param call is a work with backend
+     * @param <T>  type of result
+     * @return result of work
+     * @throws TranslateException if work failed or model cannot be loaded
+     */
+    private <T> T withModelExclusively(ModelCall<T> call) throws TranslateException {
+        while (true) {
+            ensureLoaded();
+            modelLock.writeLock().lock();
+            try {
+//                Model could be unloaded between loading and locking, then it is loaded again
+                if (modelState == ModelState.READY) {
+                    lastUseNanos = System.nanoTime();
+                    return call.run();
+                }
+            } finally {
+                modelLock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Loads model again if it was unloaded. Tokenizer, translators, ranks and caches are kept after
+     * {@link #unload()}, so only the backend is created again through the existing translators.
+     * Write lock is held during the whole load, so nothing predicts or unloads the half-loaded model.
+     *
+     * @throws TranslateException if model cannot be loaded
+     */
+    private void ensureLoaded() throws TranslateException {
+        if (modelState == ModelState.READY)
+            return;
+        modelLock.writeLock().lock();
+        try {
+            if (modelState == ModelState.READY)
+                return;
+            if (!isInitialized() || bertTranslator == null || batchTranslator == null)
+                throw new TranslateException("Model is not loaded");
+            modelState = ModelState.LOADING;
+            StartupPhases phases = new StartupPhases(AppExecutorUtil.getAppExecutorService(), null);
+            backend = loadBackend(backendType, phases).join()
+                    .create(bertTranslator, batchTranslator, getPredictorPoolSize());
+            lastUseNanos = System.nanoTime();
+            modelState = ModelState.READY;
+            LOG.info("VaDima model is loaded again on " + backendType + " in " + phases.getElapsedMillis() + " ms");
+        } catch (CompletionException e) {
+            modelState = ModelState.UNLOADED;
+            throw new TranslateException("Model cannot be loaded again", e.getCause());
+        } catch (RuntimeException e) {
+            modelState = ModelState.UNLOADED;
+            throw new TranslateException("Model cannot be loaded again", e);
+        } finally {
+            modelLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return current state of model
+     */
+    public ModelState getModelState() {
+        return modelState;
+    }
+
+    /**
+     * @return if model is being warmed up after initialization
+     */
+    public boolean isWarmingUp() {
+        return warmingUp;
+    }
+
+    /**
+     * @return downloaded part of model file from 0 to 1 or -1 if it is not known
+     */
+    public double getDownloadProgress() {
+        return loader.getDownloadProgress();
+    }
+
+    /**
+     * Failures of phases come wrapped, so the original exception is thrown as it was thrown before phases
+     *
+     * @param cause     is an exception of phase
+     * @param indicator is an indicator of initialization task. Can be null
+     */
+    private void rethrowStartupFailure(Throwable cause, ProgressIndicator indicator) throws IOException,
+            ModelNotFoundException, MalformedModelException, DbxException {
+        if (cause instanceof EngineException)
+            reloadModel(indicator);
+        else if (cause instanceof IOException)
+            throw (IOException) cause;
+        else if (cause instanceof ModelNotFoundException)
+            throw (ModelNotFoundException) cause;
+        else if (cause instanceof MalformedModelException)
+            throw (MalformedModelException) cause;
+        else if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+        else
+            throw new IllegalStateException(cause);
+    }
+
+    /**
+     * Finally, default DJL config defines that config can be wrong.
+     * This never should happen, but if something will go wrong -> reload model and try
+     * one more time to define predictor.
+     *
+     * @param indicator is an indicator of initialization task. Can be null
+     */
+    private void reloadModel(ProgressIndicator indicator) throws IOException, ModelNotFoundException,
+            MalformedModelException, DbxException {
+        loader.loadTo(backendType.getModelName(), backendType.getModelPath());
+        synchronized (sharedObject) {
+            createPredictorAndSetInitialized(indicator);
+        }
+    }
+
+    /**
+     * Vocabulary of model with reserved tokens. It is also used by benchmarks of tokenizer
+     *
+     * @return vocabulary with all recognizable tokens
+     * @throws IOException if vocabulary file cannot be read
+     */
+    public static SimpleVocabulary loadVocabulary() throws IOException {
+        try (BufferedReader brVocab = new BufferedReader(
+                new InputStreamReader(GlobalProjectInstances.URL_VOCAB.openStream()))) {
+            return SimpleVocabulary.builder()
                     .optMinFrequency(1)
                     .add(brVocab
                             .lines()
@@ -142,35 +659,47 @@ public class TorchBert {
                         add("<pad>");
                     }})
                     .build();
-
-//            Create tokenizer from the vocabulary and create translator. About the last one:
-//            more details in class itself.
-            ModelBertFullTokenizer tokenizer = new ModelBertFullTokenizer(vocabulary);
-            bertTranslator = new BertTranslator(tokenizer);
-;
-//            Define criteria for DJL model initialization
-            Criteria<String, Classifications> criteria =
-                    Criteria.builder()
-                            .optApplication(Application.NLP.SENTIMENT_ANALYSIS)
-                            .optDevice(Device.cpu())
-                            .setTypes(String.class, Classifications.class)
-                            .optModelUrls(GlobalProjectInstances.MODEL_PATH_FOR_WORK)
-                            .optTranslator(bertTranslator)
-                            .build();
-//            Finally, create model and it's predictor.
-            ZooModel<String, Classifications> model = ModelZoo.loadModel(criteria);
-            predictor = model.newPredictor(bertTranslator);
-        } catch (EngineException ignored) {
-//            Finally, default DJL config defines that config can be wrong.
-//            This never should happen, but if something will go wrong -> reload model and try
-//            one more time to define predictor.
-            loader.loadTo();
-            synchronized (sharedObject) {
-                createPredictorAndSetInitialized();
-            }
         }
     }
 
+    /**
+     * Loading of backend as phases of initialization, where
+     *
+     * @param type   is a type of backend
+     * @param phases are phases of initialization
+     * @return future with backend that waits only for translators
+     */
+    private static CompletableFuture<InferenceBackend.Factory> loadBackend(BackendType type, StartupPhases phases) {
+        ModelDoNotShowOption.VaDimaState state = ModelDoNotShowOption.getInstance().getState();
+        if (type == BackendType.ONNX_RUNTIME)
+//            ONNX Runtime is a small library, so it is loaded together with the model.
+//            Threads are not tuned for it, only numbers from settings are used
+            return phases.run("Model", () -> OnnxRuntimeBackend.load(
+                    type.getModelPath(), state.interOpThreads, state.intraOpThreads));
+//        Native libraries of PyTorch are loaded by engine, then weights are read by model
+        return phases
+                .run("Engine", () -> PyTorchBackend.loadEngine(state.interOpThreads, getIntraOpThreadsSetting()))
+                .thenApplyAsync(engine -> phases.runTimed("Model", PyTorchBackend::load),
+                        AppExecutorUtil.getAppExecutorService());
+    }
+
+    /**
+     * Durations of initialization phases. The whole time is less than their sum, because phases run
+     * at the same time. See {@link #getStartupMillis()}.
+     *
+     * @return milliseconds of each phase of the last initialization or empty map if model is not loaded
+     */
+    public Map<String, Long> getStartupTimings() {
+        return startupTimings;
+    }
+
+    /**
+     * @return milliseconds from start of the last initialization until model was ready, 0 if model is not loaded
+     */
+    public long getStartupMillis() {
+        return startupMillis;
+    }
+
     /**
      * The most needed and used method inside the whole project.
      * Predicts top-5 variable types for each parameter for function call.
@@ -185,102 +714,564 @@ public class TorchBert {
      * @throws TranslateException error during build-in prediction process. Never should happen
      */
     public List<Classification> predictOne(PyFunction pyFunction) throws TranslateException {
+//        Firstly, collect everything that model needs from PSI: code without anything before
+//        "def <func_name>" (model does not like it) and parameters with their positions.
+//        Translator does not keep any state, so predictions of different functions may run at the same time.
+        long start = System.nanoTime();
+        long startBytes = PipelineMetrics.allocatedBytes();
+        PredictionEvent event = new PredictionEvent();
+        event.begin();
+        FunctionInput input = FunctionInput.fromPyFunction(pyFunction);
+        List<Classification> prediction = predict(input, event);
+        metrics.record(Stage.REQUEST, start, startBytes);
+        finishRequest(event, input, start);
+        return prediction;
+    }
+
+    /**
+     * The same as {@link #predictOne(PyFunction)}, but prediction runs on the dedicated executor,
+     * so the caller is not blocked for the time of prediction.
+     * <p>
+     * PSI is read on the caller thread (so it must be called inside of read action), only the model works
+     * in background. If returned future is cancelled before prediction starts, then prediction is not done at all.
+     * Forward pass that is already running cannot be stopped, but its result is simply dropped.
+     * <p>
+     * If batching is enabled in settings, requests that come within the batch window
+     * are predicted together by {@link PredictionBatcher}.
+     * <p>
+     * Cached predictions are returned at once as a completed future.
+     * If model was unloaded (see {@link #unload()}), it is loaded again and the future waits for it.
+     *
+     * @param pyFunction is a function that parameters will be suggested
+     * @return future with the same result as {@link #predictOne(PyFunction)}
+     */
+    public CompletableFuture<List<Classification>> predictAsync(PyFunction pyFunction) {
+        long start = System.nanoTime();
+        long startBytes = PipelineMetrics.allocatedBytes();
+        PredictionEvent event = new PredictionEvent();
+        event.begin();
+        event.async = true;
+        FunctionInput input = FunctionInput.fromPyFunction(pyFunction);
+//        Request without parameters is finished as in predictOne, so both count the same requests
+        if (input.getParametersCount() == 0) {
+            metrics.record(Stage.REQUEST, start, startBytes);
+            finishRequest(event, input, start);
+            return CompletableFuture.completedFuture(null);
+        }
+        PredictionKey key = PredictionKey.of(input);
+        List<Classification> cached = getCached(key);
+        if (cached != null) {
+            metrics.record(Stage.REQUEST, start, startBytes);
+            event.cached = true;
+            finishRequest(event, input, start);
+            return CompletableFuture.completedFuture(cached);
+        }
+        pendingPredictions.incrementAndGet();
+        CompletableFuture<List<Classification>> prediction = predictAsyncUncached(key, input);
+//        Prediction runs on other threads, so only its time is known
+        prediction.whenComplete((predicts, e) -> {
+            pendingPredictions.decrementAndGet();
+            metrics.record(Stage.REQUEST, start, -1);
+            finishRequest(event, input, start);
+        });
+        return prediction;
+    }
+
+    /**
+     * Puts finished request into recent requests of status bar and finishes its Flight Recorder event.
+     * Fields of event are filled only if it is recorded, where
+     *
+     * @param event      is an event that was begun at the start of request
+     * @param input      is a predicted function
+     * @param startNanos is {@link System#nanoTime()} at the start of request
+     */
+    private void finishRequest(PredictionEvent event, FunctionInput input, long startNanos) {
+        recentRequests.record(input.getFunctionName(), (System.nanoTime() - startNanos) / 1000, event.cached);
+        event.end();
+        if (event.shouldCommit()) {
+            event.functionName = input.getFunctionName();
+            event.parametersCount = input.getParametersCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Asynchronous prediction by model that is put into cache, where
+     *
+     * @param key   is a key of input
+     * @param input is a function with its parameters
+     * @return future with the same result as {@link #predictOne(PyFunction)}
+     */
+    private CompletableFuture<List<Classification>> predictAsyncUncached(PredictionKey key, FunctionInput input) {
+        if (batcher != null) {
+            CompletableFuture<Classifications[]> batched = batcher.submit(input);
+//            Errors are swallowed as in predict(FunctionInput, PredictionEvent)
+            CompletableFuture<List<Classification>> result = batched.handle((allPredicts, e) ->
+                    e == null ? putCached(key, combinePredictions(allPredicts)) : null);
+//            Cancelled request is removed from its batch if the batch is not predicted yet
+            result.whenComplete((predicts, e) -> {
+                if (result.isCancelled())
+                    batched.cancel(false);
+            });
+            return result;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return predictUncached(key, input);
+            } catch (TranslateException e) {
+                throw new CompletionException(e);
+            }
+        }, predictionExecutor);
+    }
+
+    /**
+     * Waiting for the result of {@link #predictAsync(PyFunction)} that is tied to current {@link ProgressIndicator}.
+     * Completion and documentation popups cancel their indicator when user types or moves the mouse away.
+     * In this case prediction is cancelled and {@link ProcessCanceledException} is thrown as IntelliJ requires.
+     *
+     * @param prediction is a future from {@link #predictAsync(PyFunction)}
+     * @return result of prediction or null if prediction was cancelled by somebody else (for example, it is stale)
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    public List<Classification> awaitPrediction(CompletableFuture<List<Classification>> prediction)
+            throws TranslateException {
         try {
-//            Firstly, remove if something before "def <func_name>" occurs.
-//            Model does not like it.
-            String input = prepareFunctionCode(pyFunction);
-//            BERT limitation is 512 tokens. For such purpose we decided to cut 512 symbols of text
-//            to be sure that everything in further preprocessing will go correct.
-//            Moreover, if something is cut - there will not be much difference how much to cut
-            input = input.substring(0,
-                    Math.min(GlobalProjectInstances.BERT_LIMITATION, input.length()));
-//            Set current function for preprocessing
-            bertTranslator.setFunctionForBertModel(pyFunction);
-//            If function has parameters
-            if (bertTranslator.getFunctionParametersLength() > 0) {
-//                Get all predictions for all variables
-                List<Classifications> allPredicts = predictor.batchPredict(new ArrayList<>(Collections.singleton(input)));
-//                If everything is correct
-                if (allPredicts.size() > 0) {
-//                    Predictions look in a next way. Example for 2 variables:
-//                              first row is all top1 - def func(someType1,someType2)
-//                              second row is all top2 - def func(someType3,someType4)
-//                              ...
-//                              fifth row is all top5 - def func(someTypeN-1,someTypeN)
-//
-//                    Result at topK step is represented as a string with average probability of all topK parameters
-//                    Probability is not printed, but may be someone will need it
-                    String[] finalNames = new String[GlobalProjectInstances.MAX_VALUES_TO_SHOW];
-                    Arrays.fill(finalNames, "");
-                    double[] averageScore = new double[GlobalProjectInstances.MAX_VALUES_TO_SHOW];
-                    Arrays.fill(averageScore, 0.0F);
-//                    Continuing example above:
-//                    allPredicts - variable meaning predicts for 2 parameters.
-                    for (int k = 0; k < allPredicts.size(); k++) {
-//                        For current parameter get top5 values and put it in final list as a string
-//                        joined with comma
-                        List<Classification> top5 = allPredicts.get(k).topK(GlobalProjectInstances.MAX_VALUES_TO_SHOW);
-//                        Initially, we have:
-//                          Top1: "" -> 0.0
-//                          Top2: "" -> 0.0
-//                          Top3: "" -> 0.0
-//                          Top4: "" -> 0.0
-//                          Top5: "" -> 0.0
-                        for (int i = 0; i < top5.size(); i++) {
-                            Classification currentElem = top5.get(i);
-                            finalNames[i] = k == allPredicts.size() - 1 ?
-                                    finalNames[i].concat(currentElem.getClassName()) :
-                                    finalNames[i].concat(currentElem.getClassName()).concat(", ");
-                            averageScore[i] += currentElem.getProbability() / GlobalProjectInstances.MAX_VALUES_TO_SHOW;
-//                          After first step prediction will look like:
-//                          Top1: "type1," -> some value
-//                          Top2: "type2," -> some value
-//                          Top3: "type3," -> some value
-//                          Top4: "type4," -> some value
-//                          Top5: "type5," -> some value
-
-//                            And so on. For the last elem no comma needed.
-                        }
-                    }
-//                    Concatenated results and their recalculated probability form new Classifications
-                    List<String> finalNamesList = Arrays.asList(finalNames);
-                    List<Double> averageScoreList = DoubleStream.of(averageScore).boxed().collect(Collectors.toList());
-                    Classifications finalRes = new Classifications(finalNamesList, averageScoreList);
-//                    Finally, return them as a topK list (nothing is broken)
-                    return finalRes.topK(GlobalProjectInstances.MAX_VALUES_TO_SHOW);
+            while (true) {
+                try {
+                    return prediction.get(CANCELLATION_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    ProgressManager.checkCanceled();
                 }
             }
+        } catch (ProcessCanceledException e) {
+            prediction.cancel(false);
+            throw e;
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            prediction.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new TranslateException("Interrupted while waiting for prediction", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TranslateException)
+                throw (TranslateException) e.getCause();
+            throw new TranslateException(e.getCause());
+        }
+    }
+
+    /**
+     * Prediction of already prepared input, where
+     *
+     * @param input is a function with its parameters
+     * @param event is an event of request, it is marked if prediction is cached
+     * @return the same as {@link #predictOne(PyFunction)}
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    private List<Classification> predict(FunctionInput input, PredictionEvent event) throws TranslateException {
+//        If there are no parameters to predict - return null
+        if (input.getParametersCount() == 0)
+            return null;
+        PredictionKey key = PredictionKey.of(input);
+        List<Classification> cached = getCached(key);
+        event.cached = cached != null;
+        return cached != null ? cached : predictUncached(key, input);
+    }
+
+    /**
+     * Prediction by model that is put into cache, where
+     *
+     * @param key   is a key of input
+     * @param input is a function with its parameters
+     * @return the same as {@link #predictOne(PyFunction)}
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    private List<Classification> predictUncached(PredictionKey key, FunctionInput input) throws TranslateException {
+        try {
+//            Get all predictions for all variables
+            return putCached(key, combinePredictions(withModel(() -> backend.predict(input))));
         } catch (TranslateException ignored) {
         }
-//        Finally, if error occurs or there are no parameters to predict - return null
+//        Finally, if error occurs - return null
         return null;
     }
 
     /**
-     * Some functions have decorators. Specially built-in libraries have them. They are not needed for our model.
-     * We remove them from pyFunction text because did not find a way to get text without them.
-     * To be more specific, we decided to remove everything before "def <func_name>"
+     * Search of prediction in memory and then on disk. Prediction found on disk is put into memory.
+     *
+     * @param key is a key of input
+     * @return cached prediction or null if function was not predicted yet
+     */
+    private List<Classification> getCached(PredictionKey key) {
+        TopKPrediction prediction = predictionCache.get(key);
+        PersistentPredictionStore store = predictionStore;
+        if (prediction == null && store != null) {
+            prediction = store.get(key);
+            if (prediction != null)
+                predictionCache.put(key, prediction);
+        }
+        return prediction != null ? prediction.toClassifications() : null;
+    }
+
+    /**
+     * Puts prediction into cache. Prediction from a batch is cached as a single one, because row of function
+     * in batch is equal to its single input, see {@link BertTranslator#encode(FunctionInput)}. Where
+     *
+     * @param key        is a key of input
+     * @param prediction is a prediction of model. Null is not cached
+     * @return the same prediction
+     */
+    private List<Classification> putCached(PredictionKey key, List<Classification> prediction) {
+        if (prediction != null) {
+            TopKPrediction compact = TopKPrediction.of(prediction);
+            predictionCache.put(key, compact);
+            PersistentPredictionStore store = predictionStore;
+            if (store != null) {
+                try {
+                    store.put(key, compact);
+                } catch (IOException ignored) {
+//                    Disk is only a second level of cache, prediction is still returned
+                }
+            }
+        }
+        return prediction;
+    }
+
+    /**
+     * Opening of prediction store on disk. It is done once, failure only means that predictions are not kept
+     * between IDE sessions.
+     */
+    private void openPredictionStore() {
+        if (predictionStore != null)
+            return;
+        try {
+            predictionStore = new PersistentPredictionStore(GlobalProjectInstances.PREDICTION_STORE_PATH,
+                    GlobalProjectInstances.MODEL_VERSION, GlobalProjectInstances.PREDICTION_STORE_MAX_BYTES,
+                    AppExecutorUtil.getAppExecutorService());
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * The same as {@link #predictOne(PyFunction)}, but for several functions at once.
+     * Functions are grouped by length and each group is predicted in one forward pass, where each function
+     * is padded to the longest one. It is much faster than predicting functions one by one,
+     * so it is for bulk work (whole files, background precomputation).
+     * Must be called inside of read action, because functions are read from PSI.
+     * Functions that are already in cache are not predicted again.
+     *
+     * @param pyFunctions are functions that parameters will be suggested
+     * @return predictions in order of functions as {@link #predictOne(PyFunction)} returns them.
+     * For functions without parameters there is null
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    public List<List<Classification>> predictBatch(List<PyFunction> pyFunctions) throws TranslateException {
+        List<List<Classification>> results = new ArrayList<>(Collections.nCopies(pyFunctions.size(), null));
+//        Positions of functions with parameters in the given list and their inputs
+        List<Integer> positions = new ArrayList<>();
+        List<FunctionInput> inputs = new ArrayList<>();
+        List<PredictionKey> keys = new ArrayList<>();
+        for (int i = 0; i < pyFunctions.size(); i++) {
+            FunctionInput input = FunctionInput.fromPyFunction(pyFunctions.get(i));
+            if (input.getParametersCount() == 0)
+                continue;
+            PredictionKey key = PredictionKey.of(input);
+            List<Classification> cached = getCached(key);
+            if (cached != null) {
+                results.set(i, cached);
+            } else {
+                positions.add(i);
+                inputs.add(input);
+                keys.add(key);
+            }
+        }
+//        Functions of close length are put together, so there is less padding inside of each batch
+        Integer[] order = new Integer[inputs.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> inputs.get(i).getCode().length()));
+
+        for (int start = 0; start < order.length; start += GlobalProjectInstances.MAX_BATCH_SIZE) {
+            int end = Math.min(start + GlobalProjectInstances.MAX_BATCH_SIZE, order.length);
+            List<FunctionInput> batch = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++)
+                batch.add(inputs.get(order[i]));
+            List<Classifications[]> allPredicts = withModel(() -> backend.predictBatch(batch));
+            for (int i = start; i < end; i++)
+                results.set(positions.get(order[i]),
+                        putCached(keys.get(order[i]), combinePredictions(allPredicts.get(i - start))));
+        }
+        return results;
+    }
+
+    /**
+     * Combination of predictions for all parameters of function into top-5 variants for the whole function
+     *
+     * @param allPredicts are predictions for each parameter
+     * @return List of possible variants as in {@link #predictOne(PyFunction)} or null if there are no predictions
+     */
+    private List<Classification> combinePredictions(Classifications[] allPredicts) {
+        long start = System.nanoTime();
+        long startBytes = PipelineMetrics.allocatedBytes();
+        List<Classification> combined = combineTopK(allPredicts);
+        metrics.record(Stage.AGGREGATION, start, startBytes);
+        return combined;
+    }
+
+    /**
+     * Concatenation of top-k types of all parameters, see {@link #combinePredictions(Classifications[])}
      *
-     * @param pyFunction given function
-     * @return function string without decorators and others that occur before "def <func_name>"
+     * @param allPredicts are predictions for each parameter
+     * @return top-5 variants for the whole function or null if there are no predictions
      */
-    private String prepareFunctionCode(PyFunction pyFunction) {
-        String pyFunctionText = pyFunction.getNavigationElement().getText();
-        String pyFunctionName = pyFunction.getName();
-//        If everything is fine, then ...
-        if (pyFunctionName != null) {
-//            Remove everything before "def <func_name>"
-            String searchableString = "def ".concat(pyFunction.getName());
-            return pyFunctionText.substring(pyFunctionText.indexOf(searchableString));
+//    Package-private for the aggregation benchmark
+    static List<Classification> combineTopK(Classifications[] allPredicts) {
+//        If everything is correct
+        if (allPredicts.length == 0)
+            return null;
+//        Predictions look in a next way. Example for 2 variables:
+//                  first row is all top1 - def func(someType1,someType2)
+//                  second row is all top2 - def func(someType3,someType4)
+//                  ...
+//                  fifth row is all top5 - def func(someTypeN-1,someTypeN)
+//
+//        Result at topK step is represented as a string with average probability of all topK parameters
+//        Probability is not printed, but may be someone will need it
+        String[] finalNames = new String[GlobalProjectInstances.MAX_VALUES_TO_SHOW];
+        Arrays.fill(finalNames, "");
+        double[] averageScore = new double[GlobalProjectInstances.MAX_VALUES_TO_SHOW];
+        Arrays.fill(averageScore, 0.0F);
+//        Continuing example above:
+//        allPredicts - variable meaning predicts for 2 parameters.
+        for (int k = 0; k < allPredicts.length; k++) {
+//            For current parameter get top5 values and put it in final list as a string
+//            joined with comma
+            List<Classification> top5 = allPredicts[k].topK(GlobalProjectInstances.MAX_VALUES_TO_SHOW);
+//            Initially, we have:
+//              Top1: "" -> 0.0
+//              Top2: "" -> 0.0
+//              Top3: "" -> 0.0
+//              Top4: "" -> 0.0
+//              Top5: "" -> 0.0
+            for (int i = 0; i < top5.size(); i++) {
+                Classification currentElem = top5.get(i);
+                finalNames[i] = k == allPredicts.length - 1 ?
+                        finalNames[i].concat(currentElem.getClassName()) :
+                        finalNames[i].concat(currentElem.getClassName()).concat(", ");
+                averageScore[i] += currentElem.getProbability() / GlobalProjectInstances.MAX_VALUES_TO_SHOW;
+//              After first step prediction will look like:
+//              Top1: "type1," -> some value
+//              Top2: "type2," -> some value
+//              Top3: "type3," -> some value
+//              Top4: "type4," -> some value
+//              Top5: "type5," -> some value
+
+//                And so on. For the last elem no comma needed.
+            }
         }
-        // We use plugin only for ready functions. But for safety will return all text if something goes wrong
-        // in such a case a predictor may crush.
-        return pyFunction.getNavigationElement().getText();
+//        Concatenated results and their recalculated probability form new Classifications
+        List<String> finalNamesList = Arrays.asList(finalNames);
+        List<Double> averageScoreList = DoubleStream.of(averageScore).boxed().collect(Collectors.toList());
+        Classifications finalRes = new Classifications(finalNamesList, averageScoreList);
+//        Finally, return them as a topK list (nothing is broken)
+        return finalRes.topK(GlobalProjectInstances.MAX_VALUES_TO_SHOW);
+    }
+
+    /**
+     * Benchmark of model on CPU: average latency of prediction for each length bucket.
+     * Inputs are padded to the nearest bucket ({@link GlobalProjectInstances#SEQUENCE_BUCKETS}),
+     * so the result shows how much shorter functions win from it.
+     *
+     * @param iterations is a number of measured predictions for each bucket. One more prediction is done before
+     *                   measurement for warming up
+     * @return average milliseconds of one prediction for each bucket length, in order of buckets
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    public Map<Integer, Double> benchmarkBuckets(int iterations) throws TranslateException {
+        if (!isInitialized())
+            throw new IllegalStateException("Model is not loaded");
+        return withModel(() -> measureLatencies(backend, iterations));
+    }
+
+    /**
+     * Average latency of prediction for each length bucket, where
+     *
+     * @param measured   is a backend to measure
+     * @param iterations is a number of measured predictions for each bucket
+     * @return average milliseconds of one prediction for each bucket length, in order of buckets
+     * @throws TranslateException error during build-in prediction process. Never should happen
+     */
+    private Map<Integer, Double> measureLatencies(InferenceBackend measured, int iterations)
+            throws TranslateException {
+        Map<Integer, Double> latencies = new LinkedHashMap<>();
+        for (int bucket : GlobalProjectInstances.SEQUENCE_BUCKETS) {
+            FunctionInput input = createBenchmarkInput(bucket);
+            measured.predict(input);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                measured.predict(input);
+            latencies.put(bucket, (System.nanoTime() - start) / 1e6 / iterations);
+        }
+        return latencies;
+    }
+
+    /**
+     * Comparison of all available backends which model files are downloaded. Each backend is loaded once more
+     * next to the current one and closed after measurement, so predictions are not stopped.
+     * Startup is a time of loading engine and model, memory is a growth of resident memory of IDE process.
+     *
+     * @param iterations is a number of measured predictions for each bucket
+     * @return measurements of each backend
+     * @throws TranslateException if backend cannot be loaded or prediction failed
+     */
+    public Map<BackendType, BackendBenchmark> compareBackends(int iterations) throws TranslateException {
+        if (!isInitialized())
+            throw new IllegalStateException("Model is not loaded");
+        Map<BackendType, BackendBenchmark> results = new LinkedHashMap<>();
+        for (BackendType type : BackendType.availableValues()) {
+            if (new File(type.getModelPath()).exists())
+                results.put(type, benchmarkBackend(type, iterations));
+        }
+        return results;
+    }
+
+    /**
+     * Measurement of one backend, where
+     *
+     * @param type       is a type of backend
+     * @param iterations is a number of measured predictions for each bucket
+     * @return measurements of backend
+     * @throws TranslateException if backend cannot be loaded or prediction failed
+     */
+    private BackendBenchmark benchmarkBackend(BackendType type, int iterations) throws TranslateException {
+        long residentBefore = ResidentMemory.getBytes();
+        StartupPhases phases = new StartupPhases(AppExecutorUtil.getAppExecutorService(), null);
+        InferenceBackend measured;
+        try {
+            measured = loadBackend(type, phases).join().create(bertTranslator, batchTranslator, 1);
+        } catch (CompletionException e) {
+            throw new TranslateException(type + " backend cannot be loaded", e.getCause());
+        }
+        long startupMillis = phases.getElapsedMillis();
+        try {
+            FunctionInput input = createBenchmarkInput(TUNING_BUCKET);
+            long start = System.nanoTime();
+            measured.predict(input);
+            double firstPredictionMillis = (System.nanoTime() - start) / 1e6;
+            Map<Integer, Double> latencies = measureLatencies(measured, iterations);
+            long residentAfter = ResidentMemory.getBytes();
+            long residentBytes = residentBefore < 0 || residentAfter < 0 ? -1 : residentAfter - residentBefore;
+            LOG.info("VaDima backend benchmark: " + type + " started in " + startupMillis + " ms, "
+                    + "took " + residentBytes + " resident bytes, latencies " + latencies);
+            return new BackendBenchmark(type, startupMillis, firstPredictionMillis, latencies, residentBytes);
+        } finally {
+            measured.close();
+        }
+    }
+
+    /**
+     * Synthetic function with one parameter, where
+     *
+     * @param bucket is a length of input
+     * @return function that has as many tokens as possible for the bucket
+     */
+    private FunctionInput createBenchmarkInput(int bucket) {
+        String body = "def f(a):\n    return a";
+        String next = body;
+//        Each " + a" adds two tokens
+        while (tokenizer.encodeIds(next).getValidLength() <= bucket) {
+            body = next;
+            next = body.concat(" + a");
+        }
+        return new FunctionInput(body, Collections.singletonList("a"), new int[]{body.indexOf('a')});
+    }
+
+    /**
+     * @return backend that runs model or null if model is not loaded
+     */
+    public InferenceBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * @return type of backend chosen at initialization or null if model was not initialized
+     */
+    public BackendType getBackendType() {
+        return backendType;
+    }
+
+    /**
+     * Pool of predictors for single functions. Borrowing statistics show how often predictions wait for each other.
+     *
+     * @return pool or null if model is not loaded or backend does not use DJL predictors
+     */
+    public PredictorPool<FunctionInput, Classifications[]> getPredictors() {
+        InferenceBackend current = backend;
+        return current instanceof PyTorchBackend ? ((PyTorchBackend) current).getPredictors() : null;
+    }
+
+    /**
+     * @return pool of predictors for several functions at once or null if model is not loaded
+     * or backend does not use DJL predictors
+     */
+    public PredictorPool<List<FunctionInput>, List<Classifications[]>> getBatchPredictors() {
+        InferenceBackend current = backend;
+        return current instanceof PyTorchBackend ? ((PyTorchBackend) current).getBatchPredictors() : null;
+    }
+
+    /**
+     * Batcher of asynchronous predictions. Its histograms show sizes of batches and latencies of requests.
+     *
+     * @return batcher or null if model is not loaded or batching is disabled
+     */
+    public PredictionBatcher getBatcher() {
+        return batcher;
+    }
+
+    /**
+     * @return number of asynchronous predictions that are waiting or running
+     */
+    public int getPendingPredictions() {
+        return pendingPredictions.get();
+    }
+
+    /**
+     * Cache of predictions. Its statistics show how often functions are predicted again.
+     *
+     * @return cache of predictions by content of function
+     */
+    public BoundedConcurrentCache<PredictionKey, TopKPrediction> getPredictionCache() {
+        return predictionCache;
+    }
+
+    /**
+     * @return the latest requests with their latencies, they are shown in the status bar
+     */
+    public RecentRequests getRecentRequests() {
+        return recentRequests;
+    }
+
+    /**
+     * Prediction store on disk. Its statistics show how many predictions came from previous IDE sessions.
+     *
+     * @return store or null if model is not loaded or store cannot be opened
+     */
+    public PersistentPredictionStore getPredictionStore() {
+        return predictionStore;
+    }
+
+    /**
+     * Size of predictor pools is taken from plugin settings. 0 means default size.
+     *
+     * @return size of each predictor pool
+     */
+    private static int getPredictorPoolSize() {
+        int poolSize = ModelDoNotShowOption.getInstance().getState().predictorPoolSize;
+        return poolSize > 0 ? poolSize : PredictorPool.getDefaultSize();
     }
 
     /**
      * Method that uses mentioned earlier methods:
-     * {@link TorchBert#createPredictor()} and
+     * {@link TorchBert#createPredictor(ProgressIndicator)} and
      * {@link TorchBert#setInitialized(boolean)}
      * <p>
      * Method is used for removing duplicate code. Exceptions below are caused from mentioned above methods.
@@ -290,9 +1281,9 @@ public class TorchBert {
      * @throws IOException             If vocabulary (file with recognizable tokens) not found
      * @throws DbxException            DropBox issue. More details below
      */
-    private void createPredictorAndSetInitialized() throws ModelNotFoundException,
+    private void createPredictorAndSetInitialized(ProgressIndicator indicator) throws ModelNotFoundException,
             MalformedModelException, IOException, DbxException {
-        createPredictor();
+        createPredictor(indicator);
         setInitialized(true);
     }
 }
\ No newline at end of file
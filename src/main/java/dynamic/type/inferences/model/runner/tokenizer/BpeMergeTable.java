@@ -0,0 +1,211 @@
+package dynamic.type.inferences.model.runner.tokenizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * GPT2 merge table compiled at build time from gpt2Merges.txt (task compileBpeMerges in build.gradle.kts).
+ * <p>
+ * Every BPE symbol is represented as an int:
+ * ids 0..255 are single bytes (symbol of byte b has id b),
+ * merge with rank r produces symbol {@code BYTE_SYMBOLS + r}.
+ * <p>
+ * Binary layout (big-endian):
+ * magic, version, merges count, hash capacity,
+ * 256 chars of byte symbols,
+ * (left id, right id) for each merge rank,
+ * open-addressing hash table of (left id, right id) -> rank with 12 bytes per slot (long key, int rank).
+ * <p>
+ * The file is memory-mapped, so nothing is parsed or allocated during lookups.
+ */
+public final class BpeMergeTable {
+
+    public static final int MAGIC = 0x56444250;
+    public static final int VERSION = 1;
+    public static final int BYTE_SYMBOLS = 256;
+
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int SLOT_SIZE = Long.BYTES + Integer.BYTES;
+    private static final long EMPTY_KEY = -1L;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ByteBuffer buffer;
+    private final int mergesCount;
+    private final int capacityMask;
+    private final int mergesOffset;
+    private final int slotsOffset;
+
+    private final String[] symbols;
+
+    private BpeMergeTable(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION)
+            throw new IOException("Unsupported BPE merges table format");
+        this.mergesCount = buffer.getInt(2 * Integer.BYTES);
+        int capacity = buffer.getInt(3 * Integer.BYTES);
+        this.capacityMask = capacity - 1;
+        this.mergesOffset = HEADER_SIZE + BYTE_SYMBOLS * Character.BYTES;
+        this.slotsOffset = mergesOffset + mergesCount * 2 * Integer.BYTES;
+
+//        Strings of symbols are needed only for converting results back to tokens.
+//        Merges are stored in learning order, so both parts of merge are always known.
+        this.symbols = new String[BYTE_SYMBOLS + mergesCount];
+        for (int b = 0; b < BYTE_SYMBOLS; b++) {
+            symbols[b] = String.valueOf(buffer.getChar(HEADER_SIZE + b * Character.BYTES));
+        }
+        for (int rank = 0; rank < mergesCount; rank++) {
+            int symbol = BYTE_SYMBOLS + rank;
+            symbols[symbol] = symbols[getLeft(rank)].concat(symbols[getRight(rank)]);
+        }
+    }
+
+    /**
+     * Loads the table, where
+     *
+     * @param url       is the location of compiled table. If it is inside of plugin jar,
+     *                  then the table is copied once next to cacheFile and mapped from there
+     * @param cacheFile is the file where table is extracted. Checksum of the table is added to its name,
+     *                  so a changed table never reuses an old copy
+     * @return memory-mapped table
+     * @throws IOException if table cannot be read or has wrong format
+     */
+    public static BpeMergeTable load(URL url, Path cacheFile) throws IOException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return load(Paths.get(url.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+//        Mapping is possible only for real files. The table is small, so it is read to find its checksum
+        byte[] table;
+        try (InputStream stream = url.openStream()) {
+            table = stream.readAllBytes();
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(table);
+        Path tableFile = versionedFile(cacheFile, checksum.getValue());
+        if (!Files.exists(tableFile) || Files.size(tableFile) != table.length) {
+//            Other IDE may map or extract the same file right now, so it is written aside and moved at once
+            Files.createDirectories(tableFile.getParent());
+            Path temp = Files.createTempFile(tableFile.getParent(), tableFile.getFileName().toString(), TEMP_SUFFIX);
+            try {
+                Files.write(temp, table);
+                Files.move(temp, tableFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+//                Mapped file cannot be replaced on Windows. If it exists, it has the same content
+                if (!Files.exists(tableFile))
+                    throw e;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return load(tableFile);
+    }
+
+    private static Path versionedFile(Path cacheFile, long checksum) {
+        String name = cacheFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String versioned = dot < 0
+                ? name + "." + Long.toHexString(checksum)
+                : name.substring(0, dot) + "." + Long.toHexString(checksum) + name.substring(dot);
+        return cacheFile.resolveSibling(versioned);
+    }
+
+    /**
+     * Maps already existing table, where
+     *
+     * @param tableFile is a path to compiled table
+     * @return memory-mapped table
+     * @throws IOException if table cannot be read or has wrong format
+     */
+    public static BpeMergeTable load(Path tableFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(tableFile)) {
+            return new BpeMergeTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Search of merge rank, where
+     *
+     * @param left  is an id of the left symbol
+     * @param right is an id of the right symbol
+     * @return rank of merge (lower is merged earlier) or -1 if such pair is never merged
+     */
+    public int getRank(int left, int right) {
+        long key = pairKey(left, right);
+        int slot = slotOf(key, capacityMask);
+        while (true) {
+            int position = slotsOffset + slot * SLOT_SIZE;
+            long current = buffer.getLong(position);
+            if (current == key)
+                return buffer.getInt(position + Long.BYTES);
+            if (current == EMPTY_KEY)
+                return -1;
+            slot = (slot + 1) & capacityMask;
+        }
+    }
+
+    /**
+     * @param rank is a rank of merge
+     * @return id of symbol created by merge
+     */
+    public int getMergedSymbol(int rank) {
+        return BYTE_SYMBOLS + rank;
+    }
+
+    /**
+     * @param rank is a rank of merge
+     * @return id of the left part of merge
+     */
+    public int getLeft(int rank) {
+        return buffer.getInt(mergesOffset + rank * 2 * Integer.BYTES);
+    }
+
+    /**
+     * @param rank is a rank of merge
+     * @return id of the right part of merge
+     */
+    public int getRight(int rank) {
+        return buffer.getInt(mergesOffset + rank * 2 * Integer.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * @return number of all symbols: bytes and results of merges
+     */
+    public int getSymbolsCount() {
+        return symbols.length;
+    }
+
+    /**
+     * @param symbol is an id of symbol
+     * @return the string as in gpt2Merges.txt (bytes are encoded with GPT2 byte encoder)
+     */
+    public String getSymbol(int symbol) {
+        return symbols[symbol];
+    }
+
+    /**
+     * Key of the pair inside hash table. Symbol ids are not negative, so key is never equal to empty one.
+     */
+    public static long pairKey(int left, int right) {
+        return ((long) left << 32) | (right & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Start slot of the key. The same function is used by compileBpeMerges task.
+     */
+    public static int slotOf(long key, int capacityMask) {
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & capacityMask;
+    }
+}
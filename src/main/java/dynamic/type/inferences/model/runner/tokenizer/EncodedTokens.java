@@ -0,0 +1,66 @@
+package dynamic.type.inferences.model.runner.tokenizer;
+
+/**
+ * Result of {@link ModelBertFullTokenizer#encodeIds(String)}: vocabulary ids of function tokens
+ * together with special tokens and padding. It is exactly what model takes as input ids.
+ * <p>
+ * Positions of tokens in the code are recorded during tokenization. Token i (without special tokens)
+ * covers code[starts[i], ends[i]) and has id at position i + 1, because the first id is a special token.
+ */
+public class EncodedTokens {
+
+    private final long[] ids;
+    private final int validLength;
+    private final int[] starts;
+    private final int[] ends;
+
+    /**
+     * Simple constructor, where
+     *
+     * @param ids         are vocabulary ids. Ids starting from validLength are paddings
+     * @param validLength is a number of tokens including special ones
+     * @param starts      are start positions of tokens in the code (inclusive)
+     * @param ends        are end positions of tokens in the code (exclusive)
+     */
+    public EncodedTokens(long[] ids, int validLength, int[] starts, int[] ends) {
+        this.ids = ids;
+        this.validLength = validLength;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * @return vocabulary ids padded to {@link dynamic.type.inferences.GlobalProjectInstances#getBucketLength(int)}
+     */
+    public long[] getIds() {
+        return ids;
+    }
+
+    /**
+     * @return number of tokens that are not paddings
+     */
+    public int getValidLength() {
+        return validLength;
+    }
+
+    /**
+     * @return number of code tokens, i.e. without special tokens and paddings
+     */
+    public int getTokensCount() {
+        return starts.length;
+    }
+
+    /**
+     * @return start positions of code tokens in the code, sorted
+     */
+    public int[] getStarts() {
+        return starts;
+    }
+
+    /**
+     * @return end positions of code tokens in the code (exclusive)
+     */
+    public int[] getEnds() {
+        return ends;
+    }
+}
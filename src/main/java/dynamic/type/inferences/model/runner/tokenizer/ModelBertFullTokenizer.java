@@ -1,15 +1,13 @@
 package dynamic.type.inferences.model.runner.tokenizer;
 
 import ai.djl.modality.nlp.SimpleVocabulary;
-import ai.djl.modality.nlp.bert.BertToken;
 import ai.djl.modality.nlp.preprocess.SimpleTokenizer;
 import dynamic.type.inferences.GlobalProjectInstances;
 import tfLite.GPT2Tokenizer;
-import kotlin.Pair;
+import tfLite.GPT2Tokens;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * One of RoBERTa's tokenizers. Needs to be implemented for correct work of model.
@@ -20,14 +18,29 @@ import java.util.stream.Collectors;
 public class ModelBertFullTokenizer extends SimpleTokenizer {
 
     private final SimpleVocabulary vocabulary;
+    private final GPT2Tokenizer gpt2Tokenizer;
+//    Vocabulary ids of all BPE symbols, so tokens are never converted to strings
+    private final long[] symbolsVocabularyIds;
+    private final long startId;
+    private final long endId;
+    private final long padId;
 
     /**
      * Constructor of main tokenizer, where
      *
      * @param vocabulary is an instance of models vocabulary containing all recognizable worlds
+     * @throws IOException if BPE merge table cannot be loaded
      */
-    public ModelBertFullTokenizer(SimpleVocabulary vocabulary) {
+    public ModelBertFullTokenizer(SimpleVocabulary vocabulary) throws IOException {
         this.vocabulary = vocabulary;
+        this.gpt2Tokenizer = GlobalProjectInstances.getGpt2Tokenizer();
+        BpeMergeTable bpeMergeTable = GlobalProjectInstances.getBpeMergeTable();
+        this.symbolsVocabularyIds = new long[bpeMergeTable.getSymbolsCount()];
+        for (int symbol = 0; symbol < symbolsVocabularyIds.length; symbol++)
+            symbolsVocabularyIds[symbol] = vocabulary.getIndex(bpeMergeTable.getSymbol(symbol));
+        this.startId = vocabulary.getIndex("<s>");
+        this.endId = vocabulary.getIndex("</s>");
+        this.padId = vocabulary.getIndex("<pad>");
     }
 
     /**
@@ -37,6 +50,13 @@ public class ModelBertFullTokenizer extends SimpleTokenizer {
         return vocabulary;
     }
 
+    /**
+     * @return vocabulary id of padding token
+     */
+    public long getPadId() {
+        return padId;
+    }
+
     /**
      * Tokenizing process, where
      *
@@ -46,52 +66,34 @@ public class ModelBertFullTokenizer extends SimpleTokenizer {
     @Override
     public List<String> tokenize(String input) {
 //        Run GPT2 tokenizer.
-        Map<Pair<String, String>, Integer> bpeRanks;
-        try {
-            bpeRanks = GlobalProjectInstances.loadBpeRanks();
-            GPT2Tokenizer gpt2Tokenizer = new GPT2Tokenizer(bpeRanks);
-            return gpt2Tokenizer.encode(input);
-        } catch (IOException ignored) {
-            return Collections.emptyList();
-        }
+        return gpt2Tokenizer.encode(input);
     }
 
     /**
      * Code encoding to acceptable by model format, where
      *
      * @param code is a code of a function
-     * @return special BertToken defined by DJL for text tokenization. (Contains comments in DJL library)
+     * @return vocabulary ids of tokens with special tokens, padded to the nearest length bucket
      */
-    public BertToken encode(String code) throws IOException {
-        Map<Pair<String, String>, Integer> bpeRanks = GlobalProjectInstances.loadBpeRanks();
-        GPT2Tokenizer gpt2Tokenizer = new GPT2Tokenizer(bpeRanks);
-        List<String> tokens = gpt2Tokenizer.encode(code);
+    public EncodedTokens encodeIds(String code) {
+        GPT2Tokens tokens = gpt2Tokenizer.encodeSymbols(code);
+        int[] symbols = tokens.getSymbols();
 
 //      Never touch the code below. Tokens are added in a such way, because default DJL tokenizer sorts tokens:
 //      <s> should be first, but after sorting it goes after </s>.
 //      With default adding tokens </s> surprisingly will go first after <s>.
-//      In such a way logic of model crushes. So, never touch next two lines :)
+//      In such a way logic of model crushes. So, never touch first and last ids :)
 //      Also, DJL for now cannot fix it. There are no such much people who implement
 //      NER tasks in Java on BERT-based models... (we are the only one :( )
+        int validLength = symbols.length + 2;
+        long[] ids = new long[GlobalProjectInstances.getBucketLength(validLength)];
+        ids[0] = endId;
+        for (int i = 0; i < symbols.length; i++)
+            ids[i + 1] = symbolsVocabularyIds[symbols[i]];
+        ids[validLength - 1] = startId;
 
-        tokens.add(0, "</s>");
-        tokens.add("<s>");
-
-//        Create token and attention mask of tokens size
-//        attention mask contains all tokens, so all values are marked as 1's
-//        In our context BertToken is useless by itself, but it is rather easier to get all
-//        tokens now and filter some of them later then filtering tokens here.
-        int validLength = tokens.size();
-        long[] tokenTypeArr = new long[validLength];
-        Arrays.fill(tokenTypeArr, validLength, tokenTypeArr.length, 1);
-
-        long[] attentionMaskArr = new long[tokens.size()];
-        Arrays.fill(attentionMaskArr, 1);
-
-        return new BertToken(
-                tokens,
-                Arrays.stream(tokenTypeArr).boxed().collect(Collectors.toList()),
-                Arrays.stream(attentionMaskArr).boxed().collect(Collectors.toList()),
-                validLength);
+//        Padding until the nearest bucket, see GlobalProjectInstances.SEQUENCE_BUCKETS.
+        Arrays.fill(ids, validLength, ids.length, padId);
+        return new EncodedTokens(ids, validLength, tokens.getStarts(), tokens.getEnds());
     }
 }
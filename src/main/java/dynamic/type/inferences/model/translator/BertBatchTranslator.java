@@ -0,0 +1,189 @@
+package dynamic.type.inferences.model.translator;
+
+import ai.djl.Device;
+import ai.djl.modality.Classifications;
+import ai.djl.ndarray.NDArray;
+import ai.djl.ndarray.NDList;
+import ai.djl.ndarray.NDManager;
+import ai.djl.ndarray.types.DataType;
+import ai.djl.ndarray.types.Shape;
+import ai.djl.translate.Batchifier;
+import ai.djl.translate.Translator;
+import ai.djl.translate.TranslatorContext;
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.metrics.PipelineMetrics;
+import dynamic.type.inferences.metrics.PipelineMetrics.Stage;
+import dynamic.type.inferences.metrics.events.TokenizationEvent;
+import dynamic.type.inferences.model.runner.tokenizer.EncodedTokens;
+import dynamic.type.inferences.model.runner.tokenizer.ModelBertFullTokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Translator for several functions in one forward pass. Pre-processing of each function is the same
+ * as in {@link BertTranslator}.
+ * <p>
+ * All functions are padded to the length of the longest one (it is already a length bucket).
+ * Model returns rows for all found parameters of all functions one after another,
+ * so the number of rows of each function is remembered in context and used for splitting the output.
+ * <p>
+ * As {@link BertTranslator}, it keeps no state and can be shared by all threads.
+ */
+public class BertBatchTranslator implements Translator<List<FunctionInput>, List<Classifications[]>> {
+
+    private static final String ROWS_ATTACHMENT = "rowsPerFunction";
+
+    private final ModelBertFullTokenizer tokenizer;
+    private final List<String> ranks;
+    private final ParameterMaskBuilder maskBuilder = new ParameterMaskBuilder();
+    private final PipelineMetrics metrics = PipelineMetrics.getInstance();
+
+    /**
+     * Simple creation of translator from already existing tokenizer.
+     * {@link ModelBertFullTokenizer}, where
+     *
+     * @param tokenizer is the instance of mentioned class
+     */
+    public BertBatchTranslator(ModelBertFullTokenizer tokenizer) {
+//        Get all predictable types from file.
+        this(tokenizer, GlobalProjectInstances.getRanksFromFile());
+    }
+
+    /**
+     * Creation of translator with already read ranks, where
+     *
+     * @param tokenizer is the instance of {@link ModelBertFullTokenizer}
+     * @param ranks     are all predictable types, see {@link GlobalProjectInstances#getRanksFromFile()}
+     */
+    public BertBatchTranslator(ModelBertFullTokenizer tokenizer, List<String> ranks) {
+        this.tokenizer = tokenizer;
+        this.ranks = ranks;
+    }
+
+    /**
+     * Batch is created by translator itself, see {@link BertTranslator#getBatchifier()}
+     *
+     * @return null
+     */
+    @Override
+    public Batchifier getBatchifier() {
+        return null;
+    }
+
+    /**
+     * Pre-processing of all functions into one batch.
+     *
+     * @param ctx    The toolkit for creating the input NDArray
+     * @param inputs The functions with their parameters
+     * @return the {@link NDList} with arrays of shape [number of functions, length of the longest function]
+     */
+    @Override
+    public NDList processInput(TranslatorContext ctx, List<FunctionInput> inputs) {
+        EncodedBatch batch = encode(inputs);
+        ctx.setAttachment(ROWS_ATTACHMENT, batch.getRowsPerFunction());
+
+        long start = System.nanoTime();
+        long startBytes = PipelineMetrics.allocatedBytes();
+        NDManager manager = ctx.getNDManager();
+        Shape shape = new Shape(batch.getFunctionsCount(), batch.getLength());
+        NDList inputList = new NDList();
+        inputList.add(manager.create(batch.getIds(), shape));
+        inputList.add(manager.create(batch.getAttentionMask(), shape));
+        inputList.add(manager.create(batch.getIdMask(), shape));
+        inputList.add(manager.create(batch.getIdMask(), shape));
+        NDList tensors = inputList.toDevice(Device.cpu(), false);
+        metrics.record(Stage.INPUT_TENSORS, start, startBytes);
+        BertTranslator.markForwardStart(ctx, inputs, batch.getTokensCount(), batch.getLength());
+        return tensors;
+    }
+
+    /**
+     * Encoding of functions into plain arrays. It does not depend on DJL, so it is used by other inference engines.
+     *
+     * @param inputs The functions with their parameters
+     * @return arrays of shape [number of functions, length of the longest function]
+     */
+    public EncodedBatch encode(List<FunctionInput> inputs) {
+        long start = System.nanoTime();
+        long startBytes = PipelineMetrics.allocatedBytes();
+        EncodedTokens[] encodedTokens = new EncodedTokens[inputs.size()];
+        int length = 0;
+        int tokensCount = 0;
+        for (int i = 0; i < encodedTokens.length; i++) {
+            TokenizationEvent tokenization = new TokenizationEvent();
+            tokenization.begin();
+            encodedTokens[i] = tokenizer.encodeIds(inputs.get(i).getCode());
+            BertTranslator.commitTokenization(tokenization, inputs.get(i), encodedTokens[i]);
+            length = Math.max(length, encodedTokens[i].getIds().length);
+            tokensCount += encodedTokens[i].getValidLength();
+        }
+        metrics.record(Stage.TOKENIZATION, start, startBytes);
+
+//        Rows of all arrays are written one after another.
+//        Tails of shorter functions are paddings that model does not look at: attention mask is 0 past
+//        valid length of each row, so a function gets the same result as alone, whatever else is in the batch.
+        start = System.nanoTime();
+        startBytes = PipelineMetrics.allocatedBytes();
+        long[] indices = new long[encodedTokens.length * length];
+        long[] attentionMask = new long[indices.length];
+        boolean[] IDMask = new boolean[indices.length];
+        int[] rowsPerFunction = new int[encodedTokens.length];
+        Arrays.fill(indices, tokenizer.getPadId());
+        for (int i = 0; i < encodedTokens.length; i++) {
+            int offset = i * length;
+            long[] ids = encodedTokens[i].getIds();
+            System.arraycopy(ids, 0, indices, offset, ids.length);
+            Arrays.fill(attentionMask, offset, offset + encodedTokens[i].getValidLength(), 1);
+
+            boolean[] mask = maskBuilder.build(encodedTokens[i], inputs.get(i).getParameterStarts(), length);
+            System.arraycopy(mask, 0, IDMask, offset, length);
+//            Model returns one row for each marked token
+            for (boolean marked : mask) {
+                if (marked)
+                    rowsPerFunction[i]++;
+            }
+        }
+        metrics.record(Stage.PARAMETER_MASK, start, startBytes);
+        return new EncodedBatch(indices, attentionMask, IDMask, rowsPerFunction, length, tokensCount);
+    }
+
+    /**
+     * Splitting of the output between functions
+     *
+     * @param ctx  is a context - the toolkit used for post-processing
+     * @param list - result after inference. It has rows of all found parameters of all functions
+     * @return classifications for each parameter of each function, in order of inputs
+     */
+    @Override
+    public List<Classifications[]> processOutput(TranslatorContext ctx, NDList list) {
+        BertTranslator.recordForwardPass(ctx, metrics);
+        int[] rowsPerFunction = (int[]) ctx.getAttachment(ROWS_ATTACHMENT);
+        NDArray raw = list.get(0);
+        int classesCount = BertTranslator.getClassesCount(raw);
+        float[] probabilities = raw.toType(DataType.FLOAT32, false).toFloatArray();
+        return decode(rowsPerFunction, probabilities, classesCount);
+    }
+
+    /**
+     * Splitting of plain output between functions, where
+     *
+     * @param rowsPerFunction is a number of output rows of each function, see {@link EncodedBatch#getRowsPerFunction()}
+     * @param probabilities   are all output rows written one after another
+     * @param classesCount    is a length of each row
+     * @return classifications for each parameter of each function, in order of inputs
+     */
+    public List<Classifications[]> decode(int[] rowsPerFunction, float[] probabilities, int classesCount) {
+        long start = System.nanoTime();
+        long startBytes = PipelineMetrics.allocatedBytes();
+        List<Classifications[]> result = new ArrayList<>(rowsPerFunction.length);
+        int firstRow = 0;
+        for (int rows : rowsPerFunction) {
+            result.add(BertTranslator.toClassifications(ranks, probabilities, classesCount, firstRow, rows));
+            firstRow += rows;
+        }
+        metrics.record(Stage.PROCESS_OUTPUT, start, startBytes);
+        return result;
+    }
+}
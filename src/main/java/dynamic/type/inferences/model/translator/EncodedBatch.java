@@ -0,0 +1,84 @@
+package dynamic.type.inferences.model.translator;
+
+/**
+ * Inputs of model for several functions, independent of inference engine.
+ * All arrays are of shape [functions count, length] written row after row.
+ */
+public final class EncodedBatch {
+
+    private final long[] ids;
+    private final long[] attentionMask;
+    private final boolean[] idMask;
+    private final int[] rowsPerFunction;
+    private final int length;
+    private final int tokensCount;
+
+    /**
+     * Simple constructor, where
+     *
+     * @param ids             are vocabulary ids of tokens
+     * @param attentionMask   is 1 for real tokens and 0 for paddings of each row
+     * @param idMask          marks the first token of each parameter
+     * @param rowsPerFunction is a number of marked tokens of each function. Model returns one row for each of them
+     * @param length          is a length of each row
+     * @param tokensCount     is a number of real tokens of all functions, without paddings
+     */
+    public EncodedBatch(long[] ids, long[] attentionMask, boolean[] idMask, int[] rowsPerFunction, int length,
+                        int tokensCount) {
+        this.ids = ids;
+        this.attentionMask = attentionMask;
+        this.idMask = idMask;
+        this.rowsPerFunction = rowsPerFunction;
+        this.length = length;
+        this.tokensCount = tokensCount;
+    }
+
+    /**
+     * @return vocabulary ids of tokens
+     */
+    public long[] getIds() {
+        return ids;
+    }
+
+    /**
+     * @return 1 for real tokens and 0 for paddings of each row
+     */
+    public long[] getAttentionMask() {
+        return attentionMask;
+    }
+
+    /**
+     * @return true for the first token of each parameter
+     */
+    public boolean[] getIdMask() {
+        return idMask;
+    }
+
+    /**
+     * @return number of output rows of each function
+     */
+    public int[] getRowsPerFunction() {
+        return rowsPerFunction;
+    }
+
+    /**
+     * @return number of functions
+     */
+    public int getFunctionsCount() {
+        return rowsPerFunction.length;
+    }
+
+    /**
+     * @return length of each row
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return number of real tokens of all functions, without paddings
+     */
+    public int getTokensCount() {
+        return tokensCount;
+    }
+}
@@ -0,0 +1,146 @@
+package dynamic.type.inferences.model.translator;
+
+import com.intellij.openapi.util.TextRange;
+import com.intellij.psi.PsiElement;
+import com.jetbrains.python.psi.PyFunction;
+import com.jetbrains.python.psi.PyNamedParameter;
+import com.jetbrains.python.psi.PyParameter;
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.metrics.PipelineMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Input of {@link BertTranslator}: everything that is needed for prediction of one function.
+ * <p>
+ * It is created from PSI on the caller thread (inside of read action), after that it does not touch PSI,
+ * so it can be passed to any thread. Instances are immutable.
+ */
+public final class FunctionInput {
+
+    private final String code;
+    private final List<String> parameterNames;
+    private final int[] parameterStarts;
+    private final String functionName;
+
+    /**
+     * Simple constructor, where
+     *
+     * @param code            is the code of function that is given to model
+     * @param parameterNames  are names of function parameters
+     * @param parameterStarts are positions of parameter names in code, one for each name
+     */
+    public FunctionInput(String code, List<String> parameterNames, int[] parameterStarts) {
+        this(code, parameterNames, parameterStarts, "");
+    }
+
+    /**
+     * Constructor with name of function, where
+     *
+     * @param code            is the code of function that is given to model
+     * @param parameterNames  are names of function parameters
+     * @param parameterStarts are positions of parameter names in code, one for each name
+     * @param functionName    is a name of function for diagnostics. It is not a part of prediction
+     */
+    public FunctionInput(String code, List<String> parameterNames, int[] parameterStarts, String functionName) {
+        if (parameterNames.size() != parameterStarts.length)
+            throw new IllegalArgumentException("Every parameter should have its position");
+        this.functionName = functionName;
+        this.code = code;
+        this.parameterNames = Collections.unmodifiableList(new ArrayList<>(parameterNames));
+        this.parameterStarts = parameterStarts.clone();
+    }
+
+    /**
+     * Creation of input from PyCharm function. Must be called inside of read action.
+     * <p>
+     * Some functions have decorators. Specially built-in libraries have them. They are not needed for our model.
+     * We remove them from pyFunction text because did not find a way to get text without them.
+     * To be more specific, we decided to remove everything before "def <func_name>".
+     * <p>
+     * BERT limitation is 512 tokens. For such purpose we decided to cut 512 symbols of text
+     * to be sure that everything in further preprocessing will go correct.
+     * Moreover, if something is cut - there will not be much difference how much to cut
+     *
+     * @param pyFunction given function
+     * @return input with code, parameters and their positions in the code
+     */
+    public static FunctionInput fromPyFunction(PyFunction pyFunction) {
+        long start = System.nanoTime();
+        long startBytes = PipelineMetrics.allocatedBytes();
+//        Text of function is taken from navigation element (for library functions it is the source, not a stub),
+//        so parameters are taken from there as well
+        PsiElement navigationElement = pyFunction.getNavigationElement();
+        PyFunction sourceFunction = navigationElement instanceof PyFunction
+                ? (PyFunction) navigationElement
+                : pyFunction;
+        String pyFunctionText = navigationElement.getText();
+        String pyFunctionName = pyFunction.getName();
+        int cut = 0;
+//        If everything is fine, then remove everything before "def <func_name>".
+//        We use plugin only for ready functions, but for safety all text is kept if something goes wrong
+        if (pyFunctionName != null)
+            cut = Math.max(0, pyFunctionText.indexOf("def ".concat(pyFunctionName)));
+        String code = pyFunctionText.substring(cut,
+                Math.min(cut + GlobalProjectInstances.BERT_LIMITATION, pyFunctionText.length()));
+
+//        Positions of parameters are counted from the start of code
+        int shift = navigationElement.getTextRange().getStartOffset() + cut;
+        PyParameter[] parameters = sourceFunction.getParameterList().getParameters();
+        List<String> names = new ArrayList<>(parameters.length);
+        int[] starts = new int[parameters.length];
+        for (PyParameter parameter : parameters) {
+//            Separators like "*" and "/" are not variables
+            PyNamedParameter namedParameter = parameter.getAsNamed();
+            if (namedParameter == null || namedParameter.getName() == null)
+                continue;
+//            Name goes after "*" or "**", so its own range is used
+            PsiElement nameIdentifier = namedParameter.getNameIdentifier();
+            TextRange range = (nameIdentifier != null ? nameIdentifier : namedParameter).getTextRange();
+            starts[names.size()] = range.getStartOffset() - shift;
+            names.add(namedParameter.getName());
+        }
+        FunctionInput input = new FunctionInput(code, names, Arrays.copyOf(starts, names.size()),
+                pyFunctionName != null ? pyFunctionName : "");
+        PipelineMetrics.getInstance().record(PipelineMetrics.Stage.PREPARE_CODE, start, startBytes);
+        return input;
+    }
+
+    /**
+     * @return code of function starting from "def <func_name>"
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return name of function or empty string if it is not known
+     */
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    /**
+     * @return names of parameters in order of declaration
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * @return number of parameters
+     */
+    public int getParametersCount() {
+        return parameterStarts.length;
+    }
+
+    /**
+     * @return positions of parameter names in code. Positions after the cut are outside of code
+     */
+    public int[] getParameterStarts() {
+        return parameterStarts.clone();
+    }
+}
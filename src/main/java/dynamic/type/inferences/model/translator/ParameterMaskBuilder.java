@@ -0,0 +1,60 @@
+package dynamic.type.inferences.model.translator;
+
+import dynamic.type.inferences.model.runner.tokenizer.EncodedTokens;
+
+import java.util.Arrays;
+
+/**
+ * Builder of ID mask - the model input that shows where parameters of function are placed.
+ * <p>
+ * Model takes only the first token of each parameter. Positions of parameters are known from PSI
+ * and positions of tokens are recorded by tokenizer, so the token of parameter is found by binary search
+ * over token starts. Mask is filled in one pass, nothing is tokenized again.
+ */
+public class ParameterMaskBuilder {
+
+    private final ThreadLocal<boolean[]> maskBuffer = ThreadLocal.withInitial(() -> new boolean[0]);
+
+    /**
+     * Mask creation, where
+     *
+     * @param encodedTokens   are tokens of function code with their positions
+     * @param parameterStarts are positions of parameter names in the same code.
+     *                        Positions outside of code (for example, cut off) are skipped
+     * @param length          is the length of mask (the same as the length of input ids)
+     * @return mask filled with true's at positions of the first tokens of parameters.
+     * The array is reused by next calls from the same thread, so it should be copied before that
+     */
+    public boolean[] build(EncodedTokens encodedTokens, int[] parameterStarts, int length) {
+        boolean[] mask = maskBuffer.get();
+        if (mask.length != length) {
+            mask = new boolean[length];
+            maskBuffer.set(mask);
+        } else
+            Arrays.fill(mask, false);
+
+        int[] starts = encodedTokens.getStarts();
+        int[] ends = encodedTokens.getEnds();
+        int tokensCount = encodedTokens.getTokensCount();
+        for (int parameterStart : parameterStarts) {
+            int token = findToken(starts, ends, tokensCount, parameterStart);
+//            The first id is a special token, so token i is placed at position i + 1
+            if (token != -1 && token + 1 < length)
+                mask[token + 1] = true;
+        }
+        return mask;
+    }
+
+    /**
+     * @return index of token that contains position or -1 if there is no such
+     */
+    private static int findToken(int[] starts, int[] ends, int tokensCount, int position) {
+        if (tokensCount == 0 || position < 0)
+            return -1;
+        int index = Arrays.binarySearch(starts, 0, tokensCount, position);
+//        Not an exact match: take the last token that starts before the position
+        if (index < 0)
+            index = -index - 2;
+        return index >= 0 && position < ends[index] ? index : -1;
+    }
+}
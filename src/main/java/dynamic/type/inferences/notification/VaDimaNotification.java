@@ -44,4 +44,32 @@ public class VaDimaNotification {
                         "Reloading model...",
                         NotificationType.ERROR);
     }
+
+    /**
+     * Information notification with results of model benchmark, where
+     *
+     * @param content is a text of results
+     * @return Balloon information notification
+     */
+    public Notification createBenchmarkNotification(String content) {
+        return createBenchmarkNotification("Model latency per input length", content);
+    }
+
+    /**
+     * Information notification with results of any benchmark, where
+     *
+     * @param subtitle is a name of benchmark
+     * @param content  is a text of results
+     * @return Balloon information notification
+     */
+    public Notification createBenchmarkNotification(String subtitle, String content) {
+        return NotificationGroupManager
+                .getInstance()
+                .getNotificationGroup("VaDima Notification Group")
+                .createNotification(
+                        "VaDima plugin info",
+                        subtitle,
+                        content,
+                        NotificationType.INFORMATION);
+    }
 }
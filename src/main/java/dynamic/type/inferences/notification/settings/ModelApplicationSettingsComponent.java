@@ -1,13 +1,23 @@
 package dynamic.type.inferences.notification.settings;
 
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.ui.JBIntSpinner;
 import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.components.JBTextArea;
 import com.intellij.util.ui.FormBuilder;
 import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.metrics.DiagnosticsReport;
+import dynamic.type.inferences.metrics.PipelineMetrics;
+import dynamic.type.inferences.model.backend.BackendType;
+import dynamic.type.inferences.startUpActivity.ModelStartUpActivity;
 import dynamic.type.inferences.startUpActivity.windowOnStartUp.ModelDoNotShowOption;
 
 import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Class for creating Settings option In PyCharm with checkbox "show types at PyCharm start"
@@ -19,12 +29,29 @@ public class ModelApplicationSettingsComponent {
 
     private final JPanel mainPanel;
     private final JBCheckBox modelStatus = new JBCheckBox("Show VaDima recognizable types at PyCharm start");
+    private final JBCheckBox warmUp = new JBCheckBox("Warm up model after loading");
+    private final ComboBox<BackendType> backend = new ComboBox<>(BackendType.availableValues());
+    private final JBIntSpinner interOpThreads = new JBIntSpinner(0, 0, MAX_THREADS);
+    private final JBIntSpinner intraOpThreads = new JBIntSpinner(0, 0, MAX_THREADS);
+    private final JBCheckBox autoTuneThreads = new JBCheckBox("Auto-tune PyTorch intra-op threads on the next start (predictions wait for it)");
+    private final JBIntSpinner predictorPoolSize = new JBIntSpinner(0, 0, MAX_POOL_SIZE);
+    private final JBIntSpinner batchWindowMillis = new JBIntSpinner(0, 0, MAX_BATCH_WINDOW_MILLIS);
+    private final JBIntSpinner maxBatchSize = new JBIntSpinner(0, 0, MAX_BATCH_SIZE);
+    private final JBIntSpinner unloadAfterIdleMinutes = new JBIntSpinner(0, 0, MAX_IDLE_MINUTES);
+    private final JBTextArea diagnostics = new JBTextArea(DIAGNOSTICS_ROWS, 0);
+    private final JBLabel diagnosticsStatus = new JBLabel();
 
     private static final String HTML_BOLD_START = "<html><b>";
     private static final String HTML_BOLD_END = "</b></html>";
     private static final String HTML_BOLD = "</b>";
     private static final String HTML_END = "</html>";
     private static final int INDENT = 15;
+    private static final int MAX_POOL_SIZE = 64;
+    private static final int MAX_BATCH_WINDOW_MILLIS = 100;
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final int MAX_IDLE_MINUTES = 24 * 60;
+    private static final int MAX_THREADS = 256;
+    private static final int DIAGNOSTICS_ROWS = 16;
     /**
      * Main class for creating mentioned above objects.
      */
@@ -33,6 +60,15 @@ public class ModelApplicationSettingsComponent {
         ModelDoNotShowOption.VaDimaState state = ModelDoNotShowOption.getInstance().getState();
 //        Set the value of checkbox that user selected
         modelStatus.setSelected(state.toBeShown);
+        predictorPoolSize.setNumber(state.predictorPoolSize);
+        batchWindowMillis.setNumber(state.batchWindowMillis);
+        maxBatchSize.setNumber(state.maxBatchSize);
+        unloadAfterIdleMinutes.setNumber(state.unloadAfterIdleMinutes);
+        warmUp.setSelected(state.warmUp);
+        backend.setSelectedItem(BackendType.fromName(state.backend));
+        interOpThreads.setNumber(state.interOpThreads);
+        intraOpThreads.setNumber(state.intraOpThreads);
+        autoTuneThreads.setSelected(state.autoTuneThreads);
 //        Load ranks from file and put them into scroll pane
         JBScrollPane scrollPane = GlobalProjectInstances.getRanksScrollPanel();
         JLabel jLabelEmpty = new JBLabel(HTML_BOLD_START + "Recognizable types by VaDima: " + HTML_BOLD_END);
@@ -43,17 +79,85 @@ public class ModelApplicationSettingsComponent {
         jLabelEmpty.setBorder(BorderFactory.createEmptyBorder(INDENT, 0, INDENT, 0));
         jLabelModelPath.setBorder(BorderFactory.createEmptyBorder(INDENT, 0, INDENT, 0));
 
+//        Measurements of the running plugin. They are read only when settings are opened or refreshed
+        JLabel jLabelDiagnostics = new JBLabel(HTML_BOLD_START + "Diagnostics: " + HTML_BOLD_END);
+        jLabelDiagnostics.setBorder(BorderFactory.createEmptyBorder(INDENT, 0, 0, 0));
+        diagnostics.setEditable(false);
+        diagnostics.setFont(new Font(Font.MONOSPACED, Font.PLAIN, diagnostics.getFont().getSize()));
+        refreshDiagnostics();
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(event -> refreshDiagnostics());
+        JButton resetButton = new JButton("Reset Stages");
+        resetButton.addActionListener(event -> {
+            PipelineMetrics.getInstance().reset();
+            refreshDiagnostics();
+        });
+        JButton dumpButton = new JButton("Save for Bug Report");
+        dumpButton.addActionListener(event -> dumpDiagnostics());
+        JPanel diagnosticsButtons = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        diagnosticsButtons.add(refreshButton);
+        diagnosticsButtons.add(resetButton);
+        diagnosticsButtons.add(dumpButton);
+        diagnosticsButtons.add(diagnosticsStatus);
+
 //        Put everything together
         mainPanel = FormBuilder
                 .createFormBuilder()
                 .addComponent(jLabelModelPath, 0)
                 .addComponent(modelStatus, 1)
+                .addLabeledComponent(
+                        new JBLabel("Parallel predictions (0 - by number of cores, applied after restart):"),
+                        predictorPoolSize, 1)
+                .addLabeledComponent(
+                        new JBLabel("Batch window in ms (0 - no batching, applied after restart):"),
+                        batchWindowMillis, 1)
+                .addLabeledComponent(
+                        new JBLabel("Maximum batch size (0 - default, applied after restart):"),
+                        maxBatchSize, 1)
+                .addLabeledComponent(
+                        new JBLabel("Unload model after idle minutes (0 - never):"),
+                        unloadAfterIdleMinutes, 1)
+                .addComponent(warmUp, 1)
+                .addLabeledComponent(
+                        new JBLabel("Inference backend (applied after restart):"),
+                        backend, 1)
+                .addLabeledComponent(
+                        new JBLabel("Inter-op threads (0 - default, applied after restart):"),
+                        interOpThreads, 1)
+                .addLabeledComponent(
+                        new JBLabel("Intra-op threads (0 - default or auto-tuned, applied after restart):"),
+                        intraOpThreads, 1)
+                .addComponent(autoTuneThreads, 1)
+                .addComponent(jLabelDiagnostics, 2)
+                .addComponent(new JBScrollPane(diagnostics), 1)
+                .addComponent(diagnosticsButtons, 1)
                 .addComponent(jLabelEmpty, 2)
                 .addComponent(scrollPane, 3)
                 .addComponentFillVertically(new JPanel(), 4)
                 .getPanel();
     }
 
+    /**
+     * Shows the current measurements of plugin
+     */
+    private void refreshDiagnostics() {
+        diagnostics.setText(DiagnosticsReport.create(ModelStartUpActivity.getTorchBertInstance()));
+        diagnostics.setCaretPosition(0);
+    }
+
+    /**
+     * Saves the current measurements to the log directory of IDE and shows path of file
+     */
+    private void dumpDiagnostics() {
+        refreshDiagnostics();
+        try {
+            Path path = DiagnosticsReport.dump(diagnostics.getText());
+            diagnosticsStatus.setText("  Saved to " + path);
+        } catch (IOException e) {
+            diagnosticsStatus.setText("  Cannot save: " + e.getMessage());
+        }
+    }
+
     /**
      * Simple getter of panel
      *
@@ -89,4 +193,166 @@ public class ModelApplicationSettingsComponent {
     public void setModelStatus(boolean newStatus) {
         modelStatus.setSelected(newStatus);
     }
+
+    /**
+     * Getter of predictor pool size
+     *
+     * @return number of parallel predictions, 0 means default
+     */
+    public int getPredictorPoolSize() {
+        return predictorPoolSize.getNumber();
+    }
+
+    /**
+     * Setter of predictor pool size
+     *
+     * @param newSize number of parallel predictions, 0 means default
+     */
+    public void setPredictorPoolSize(int newSize) {
+        predictorPoolSize.setNumber(newSize);
+    }
+
+    /**
+     * Getter of batch window
+     *
+     * @return time of collecting predictions into one batch in milliseconds, 0 means no batching
+     */
+    public int getBatchWindowMillis() {
+        return batchWindowMillis.getNumber();
+    }
+
+    /**
+     * Setter of batch window
+     *
+     * @param newWindow time of collecting predictions into one batch in milliseconds, 0 means no batching
+     */
+    public void setBatchWindowMillis(int newWindow) {
+        batchWindowMillis.setNumber(newWindow);
+    }
+
+    /**
+     * Getter of maximum batch size
+     *
+     * @return maximum number of functions in one batch, 0 means default
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize.getNumber();
+    }
+
+    /**
+     * Setter of maximum batch size
+     *
+     * @param newSize maximum number of functions in one batch, 0 means default
+     */
+    public void setMaxBatchSize(int newSize) {
+        maxBatchSize.setNumber(newSize);
+    }
+
+    /**
+     * Getter of idle time before model unloading
+     *
+     * @return minutes without predictions after which model is unloaded, 0 means never
+     */
+    public int getUnloadAfterIdleMinutes() {
+        return unloadAfterIdleMinutes.getNumber();
+    }
+
+    /**
+     * Setter of idle time before model unloading
+     *
+     * @param newMinutes minutes without predictions after which model is unloaded, 0 means never
+     */
+    public void setUnloadAfterIdleMinutes(int newMinutes) {
+        unloadAfterIdleMinutes.setNumber(newMinutes);
+    }
+
+    /**
+     * Getter of warm-up checkBox select
+     *
+     * @return if model is warmed up after loading
+     */
+    public boolean getWarmUp() {
+        return warmUp.isSelected();
+    }
+
+    /**
+     * Setter of warm-up checkBox select
+     *
+     * @param newWarmUp if model is warmed up after loading
+     */
+    public void setWarmUp(boolean newWarmUp) {
+        warmUp.setSelected(newWarmUp);
+    }
+
+    /**
+     * Getter of inference backend
+     *
+     * @return name of backend, see {@link BackendType#getDisplayName()}
+     */
+    public String getBackend() {
+        return backend.getItem().getDisplayName();
+    }
+
+    /**
+     * Setter of inference backend
+     *
+     * @param newBackend name of backend, see {@link BackendType#getDisplayName()}
+     */
+    public void setBackend(String newBackend) {
+        backend.setSelectedItem(BackendType.fromName(newBackend));
+    }
+
+    /**
+     * Getter of inter-op threads
+     *
+     * @return number of inter-op threads, 0 means default
+     */
+    public int getInterOpThreads() {
+        return interOpThreads.getNumber();
+    }
+
+    /**
+     * Setter of inter-op threads
+     *
+     * @param newThreads number of inter-op threads, 0 means default
+     */
+    public void setInterOpThreads(int newThreads) {
+        interOpThreads.setNumber(newThreads);
+    }
+
+    /**
+     * Getter of intra-op threads
+     *
+     * @return number of intra-op threads, 0 means default or auto-tuned
+     */
+    public int getIntraOpThreads() {
+        return intraOpThreads.getNumber();
+    }
+
+    /**
+     * Setter of intra-op threads
+     *
+     * @param newThreads number of intra-op threads, 0 means default or auto-tuned
+     */
+    public void setIntraOpThreads(int newThreads) {
+        intraOpThreads.setNumber(newThreads);
+    }
+
+    /**
+     * Getter of auto-tuning checkBox select
+     *
+     * @return if intra-op threads are chosen by benchmark
+     */
+    public boolean getAutoTuneThreads() {
+        return autoTuneThreads.isSelected();
+    }
+
+    /**
+     * Setter of auto-tuning checkBox select
+     *
+     * @param newAutoTune if intra-op threads are chosen by benchmark
+     */
+    public void setAutoTuneThreads(boolean newAutoTune) {
+        autoTuneThreads.setSelected(newAutoTune);
+    }
 }
@@ -2,6 +2,7 @@ package dynamic.type.inferences.notification.settings;
 
 import com.intellij.openapi.options.Configurable;
 import com.intellij.openapi.util.NlsContexts;
+import dynamic.type.inferences.model.backend.BackendType;
 import dynamic.type.inferences.startUpActivity.windowOnStartUp.ModelDoNotShowOption;
 import org.jetbrains.annotations.Nullable;
 
@@ -51,13 +52,22 @@ public class ModelSettingsConfigurable implements Configurable {
     }
 
     /**
-     * Check if form was modified. In this case - checkBox select
+     * Check if form was modified. In this case - checkBox select and model settings
      *
      * @return check if something was modified
      */
     @Override
     public boolean isModified() {
-        return component.getModelStatus() != state.toBeShown;
+        return component.getModelStatus() != state.toBeShown
+                || component.getPredictorPoolSize() != state.predictorPoolSize
+                || component.getBatchWindowMillis() != state.batchWindowMillis
+                || component.getMaxBatchSize() != state.maxBatchSize
+                || component.getUnloadAfterIdleMinutes() != state.unloadAfterIdleMinutes
+                || component.getWarmUp() != state.warmUp
+                || !component.getBackend().equals(BackendType.fromName(state.backend).getDisplayName())
+                || component.getInterOpThreads() != state.interOpThreads
+                || component.getIntraOpThreads() != state.intraOpThreads
+                || component.getAutoTuneThreads() != state.autoTuneThreads;
     }
 
     /**
@@ -66,13 +76,31 @@ public class ModelSettingsConfigurable implements Configurable {
     @Override
     public void apply() {
         state.toBeShown = component.getModelStatus();
+        state.predictorPoolSize = component.getPredictorPoolSize();
+        state.batchWindowMillis = component.getBatchWindowMillis();
+        state.maxBatchSize = component.getMaxBatchSize();
+        state.unloadAfterIdleMinutes = component.getUnloadAfterIdleMinutes();
+        state.warmUp = component.getWarmUp();
+        state.backend = component.getBackend();
+        state.interOpThreads = component.getInterOpThreads();
+        state.intraOpThreads = component.getIntraOpThreads();
+        state.autoTuneThreads = component.getAutoTuneThreads();
     }
 
     /**
-     * Loads the settings from the configurable component -> get checkBox status in vaDima case
+     * Loads the settings from the configurable component -> get checkBox status and model settings in vaDima case
      */
     @Override
     public void reset() {
         component.setModelStatus(state.toBeShown);
+        component.setPredictorPoolSize(state.predictorPoolSize);
+        component.setBatchWindowMillis(state.batchWindowMillis);
+        component.setMaxBatchSize(state.maxBatchSize);
+        component.setUnloadAfterIdleMinutes(state.unloadAfterIdleMinutes);
+        component.setWarmUp(state.warmUp);
+        component.setBackend(state.backend);
+        component.setInterOpThreads(state.interOpThreads);
+        component.setIntraOpThreads(state.intraOpThreads);
+        component.setAutoTuneThreads(state.autoTuneThreads);
     }
 }
@@ -8,6 +8,7 @@ import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.startup.StartupActivity;
+import dynamic.type.inferences.metrics.VaDimaMetrics;
 import dynamic.type.inferences.model.runner.TorchBert;
 import org.jetbrains.annotations.NotNull;
 
@@ -44,6 +45,8 @@ public class ModelStartUpActivity implements StartupActivity {
      */
     @Override
     public void runActivity(@NotNull Project project) {
+//        Metrics are seen in JMX even while model is loading
+        VaDimaMetrics.register(torchBertInstance);
         ProgressManager.getInstance().run(
                 new Task.Backgroundable(project, "VaDima loader") {
                     public void run(@NotNull ProgressIndicator indicator) {
@@ -53,7 +56,7 @@ public class ModelStartUpActivity implements StartupActivity {
                         try {
 //                            Load model if it is not loaded, initialize BERT predictor, translator
 //                            Briefly - do the whole work for model initialization.
-                            torchBertInstance.modelInit();
+                            torchBertInstance.modelInit(indicator);
 //                            When everything is done - stop indicator
                             indicator.stop();
 //                            All exceptions never should happen and methods for model initialization
@@ -6,11 +6,12 @@ import com.intellij.openapi.components.State;
 import com.intellij.openapi.components.Storage;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.util.NlsContexts;
+import dynamic.type.inferences.model.backend.BackendType;
 import org.jetbrains.annotations.NotNull;
 
 /**
  * Component entity which persists its state across IDE restarts
- * For VaDima only stored the option "show variables at PyCharm start"
+ * For VaDima stored the option "show variables at PyCharm start" and settings of model work
  */
 @State(
         name = "VaDimaState",
@@ -101,6 +102,27 @@ public class ModelDoNotShowOption implements DialogWrapper.DoNotAskOption, Persi
      */
     public static class VaDimaState {
         public boolean toBeShown;
+//        Number of predictors that can work at the same time. 0 means default (by number of cores)
+        public int predictorPoolSize;
+//        Time of collecting concurrent predictions into one batch. 0 disables batching
+        public int batchWindowMillis;
+//        Maximum number of functions in one batch. 0 means default
+        public int maxBatchSize;
+//        Model is unloaded after this number of minutes without predictions. 0 means never
+        public int unloadAfterIdleMinutes;
+//        Run synthetic predictions after model load, so the first real prediction is fast
+        public boolean warmUp = true;
+//        Engine that runs model, see BackendType. Applied after restart
+        public String backend = BackendType.PYTORCH.getDisplayName();
+//        Threads of backend. 0 means default. Inter-op threads are applied after restart
+        public int interOpThreads;
+        public int intraOpThreads;
+//        If intra-op threads are not set, they are chosen by benchmark on the next start (only for PyTorch).
+//        Predictions wait until benchmark ends, so it is off by default.
+//        Result is valid only for the same number of cores
+        public boolean autoTuneThreads;
+        public int tunedIntraOpThreads;
+        public int tunedForCores;
     }
 
 }
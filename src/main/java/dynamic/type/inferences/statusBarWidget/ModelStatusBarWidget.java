@@ -0,0 +1,151 @@
+package dynamic.type.inferences.statusBarWidget;
+
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.ui.popup.util.BaseListPopupStep;
+import com.intellij.openapi.wm.StatusBar;
+import com.intellij.openapi.wm.StatusBarWidget;
+import com.intellij.ui.awt.RelativePoint;
+import com.intellij.util.Consumer;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import dynamic.type.inferences.GlobalProjectInstances;
+import dynamic.type.inferences.metrics.RecentRequests;
+import dynamic.type.inferences.metrics.RecentRequests.SlowRequest;
+import dynamic.type.inferences.model.backend.BackendType;
+import dynamic.type.inferences.model.runner.TorchBert;
+import dynamic.type.inferences.startUpActivity.ModelStartUpActivity;
+import org.jetbrains.annotations.NotNull;
+
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Status bar widget with state of model (downloading, loading, warming up, ready or unloaded) and latency of
+ * the last request together with average of the latest ones. So it is seen at once if slow IDE waits for VaDima.
+ * Click shows the latest slow requests with names of functions.
+ * <p>
+ * Model is one for all projects, so widget only reads it once a second and keeps no state of its own.
+ */
+public class ModelStatusBarWidget implements StatusBarWidget, StatusBarWidget.TextPresentation {
+
+    public static final String ID = "VaDimaModelStatus";
+
+    private static final long REFRESH_SECONDS = 1;
+
+    private final TorchBert torchBert = ModelStartUpActivity.getTorchBertInstance();
+    private ScheduledFuture<?> refresh;
+
+    @Override
+    public @NotNull String ID() {
+        return ID;
+    }
+
+    @Override
+    public WidgetPresentation getPresentation() {
+        return this;
+    }
+
+    /**
+     * Starts refreshing of widget, where
+     *
+     * @param statusBar is a status bar of project window
+     */
+    @Override
+    public void install(@NotNull StatusBar statusBar) {
+        refresh = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(
+                () -> statusBar.updateWidget(ID), REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void dispose() {
+        if (refresh != null)
+            refresh.cancel(false);
+    }
+
+    @Override
+    public @NotNull String getText() {
+        switch (torchBert.getModelState()) {
+            case DOWNLOADING:
+                double progress = torchBert.getDownloadProgress();
+                return progress < 0 ? "VaDima: downloading"
+                        : String.format("VaDima: downloading %d%%", (int) (progress * 100));
+            case LOADING:
+                return "VaDima: loading";
+            case READY:
+                if (torchBert.isWarmingUp())
+                    return "VaDima: warming up";
+                RecentRequests recentRequests = torchBert.getRecentRequests();
+                long lastMicros = recentRequests.getLastMicros();
+                return lastMicros < 0 ? "VaDima: ready" : String.format("VaDima: %d ms (avg %d ms)",
+                        toMillis(lastMicros), toMillis(recentRequests.getAverageMicros()));
+            case UNLOADED:
+                return "VaDima: unloaded";
+            default:
+                return "VaDima: not loaded";
+        }
+    }
+
+    @Override
+    public float getAlignment() {
+        return Component.CENTER_ALIGNMENT;
+    }
+
+    @Override
+    public String getTooltipText() {
+        BackendType backendType = torchBert.getBackendType();
+        RecentRequests recentRequests = torchBert.getRecentRequests();
+        StringBuilder tooltip = new StringBuilder()
+                .append("VaDima model: ")
+                .append(torchBert.getModelState().name().toLowerCase().replace('_', ' '));
+        if (backendType != null)
+            tooltip.append(" on ").append(backendType.getDisplayName());
+        if (recentRequests.getLastMicros() >= 0)
+            tooltip.append(String.format(". Last request %d ms, average of the latest %d requests %d ms",
+                    toMillis(recentRequests.getLastMicros()), GlobalProjectInstances.RECENT_REQUESTS_WINDOW,
+                    toMillis(recentRequests.getAverageMicros())));
+        return tooltip
+                .append(". Predictions in progress: ")
+                .append(torchBert.getPendingPredictions())
+                .append(". Click to see slow requests")
+                .toString();
+    }
+
+    @Override
+    public Consumer<MouseEvent> getClickConsumer() {
+        return this::showSlowRequests;
+    }
+
+    /**
+     * Shows popup with the latest slow requests, where
+     *
+     * @param event is a click on widget
+     */
+    private void showSlowRequests(MouseEvent event) {
+        RecentRequests recentRequests = torchBert.getRecentRequests();
+        List<String> rows = recentRequests.getSlowRequests()
+                .stream()
+                .map(ModelStatusBarWidget::formatSlowRequest)
+                .collect(Collectors.toList());
+        if (rows.isEmpty())
+            rows = Collections.singletonList("There were no slow requests");
+        String title = "VaDima requests slower than " + recentRequests.getSlowMillis() + " ms";
+        JBPopupFactory.getInstance()
+                .createListPopup(new BaseListPopupStep<>(title, rows))
+                .show(new RelativePoint(event));
+    }
+
+    private static String formatSlowRequest(SlowRequest request) {
+        String functionName = request.getFunctionName().isEmpty() ? "<unknown>" : request.getFunctionName();
+        return String.format("%s  %s: %d ms%s", request.getTime().truncatedTo(ChronoUnit.SECONDS), functionName,
+                toMillis(request.getMicros()), request.isCached() ? " (cached)" : "");
+    }
+
+    private static long toMillis(long micros) {
+        return micros / 1000;
+    }
+}
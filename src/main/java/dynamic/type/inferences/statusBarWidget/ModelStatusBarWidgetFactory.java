@@ -0,0 +1,44 @@
+package dynamic.type.inferences.statusBarWidget;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.wm.StatusBar;
+import com.intellij.openapi.wm.StatusBarWidget;
+import com.intellij.openapi.wm.StatusBarWidgetFactory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates {@link ModelStatusBarWidget} for each project window. It can be hidden from context menu of status bar.
+ */
+public class ModelStatusBarWidgetFactory implements StatusBarWidgetFactory {
+
+    @Override
+    public @NotNull String getId() {
+        return ModelStatusBarWidget.ID;
+    }
+
+    @Override
+    public @NotNull String getDisplayName() {
+        return "VaDima Model Status";
+    }
+
+    @Override
+    public boolean isAvailable(@NotNull Project project) {
+        return true;
+    }
+
+    @Override
+    public @NotNull StatusBarWidget createWidget(@NotNull Project project) {
+        return new ModelStatusBarWidget();
+    }
+
+    @Override
+    public void disposeWidget(@NotNull StatusBarWidget widget) {
+        Disposer.dispose(widget);
+    }
+
+    @Override
+    public boolean canBeEnabledOn(@NotNull StatusBar statusBar) {
+        return true;
+    }
+}
@@ -0,0 +1,111 @@
+package tfLite
+
+import dynamic.type.inferences.model.runner.tokenizer.BpeMergeTable
+
+/**
+ * BPE merges over int symbols of [BpeMergeTable].
+ *
+ * Symbols are kept in a linked array (merged symbol stays at the position of its left part),
+ * all adjacent pairs are kept in a priority queue ordered by (rank, position).
+ * Pairs that were destroyed by previous merges are skipped when they are taken from the queue.
+ * Such order merges exactly the same pairs as the original word-rebuilding loop:
+ * the lowest rank first, all its occurrences from left to right.
+ */
+class GPT2BpeEngine(private val bpeRanks: BpeMergeTable) {
+
+    /**
+     * Merges symbols in place.
+     *
+     * @param symbols ids of byte symbols of one pre-token. Result is written to the beginning of the array
+     * @param length number of symbols
+     * @return number of symbols after all merges
+     */
+    fun bpe(symbols: IntArray, length: Int): Int {
+        if (length <= 1) return length
+
+        val next = IntArray(length) { if (it + 1 < length) it + 1 else -1 }
+        val previous = IntArray(length) { it - 1 }
+        val queue = PairQueue(length)
+        for (i in 0 until length - 1) {
+            queue.push(bpeRanks.getRank(symbols[i], symbols[i + 1]), i)
+        }
+
+        var count = length
+        while (count > 1 && queue.isNotEmpty()) {
+            val entry = queue.pop()
+            val rank = (entry ushr 32).toInt()
+            val left = entry.toInt()
+            val right = next[left]
+//            Pair is outdated: one of its symbols was already merged with another neighbour
+            if (symbols[left] == REMOVED || right == -1 ||
+                bpeRanks.getRank(symbols[left], symbols[right]) != rank
+            ) continue
+
+            symbols[left] = bpeRanks.getMergedSymbol(rank)
+            symbols[right] = REMOVED
+            next[left] = next[right]
+            if (next[right] != -1) previous[next[right]] = left
+            count--
+
+            if (previous[left] != -1) {
+                queue.push(bpeRanks.getRank(symbols[previous[left]], symbols[left]), previous[left])
+            }
+            if (next[left] != -1) {
+                queue.push(bpeRanks.getRank(symbols[left], symbols[next[left]]), left)
+            }
+        }
+
+//        The first symbol is never removed, so the chain always starts from it
+        var position = 0
+        var current = 0
+        while (current != -1) {
+            symbols[position++] = symbols[current]
+            current = next[current]
+        }
+        return count
+    }
+
+    /**
+     * Binary min-heap of (rank, position) packed into longs. Pairs without rank are not stored.
+     */
+    private class PairQueue(capacity: Int) {
+        private var heap = LongArray(capacity)
+        private var size = 0
+
+        fun isNotEmpty() = size > 0
+
+        fun push(rank: Int, position: Int) {
+            if (rank < 0) return
+            if (size == heap.size) heap = heap.copyOf(size * 2)
+            val entry = (rank.toLong() shl 32) or position.toLong()
+            var i = size++
+            while (i > 0) {
+                val parent = (i - 1) / 2
+                if (heap[parent] <= entry) break
+                heap[i] = heap[parent]
+                i = parent
+            }
+            heap[i] = entry
+        }
+
+        fun pop(): Long {
+            val result = heap[0]
+            val last = heap[--size]
+            var i = 0
+            while (true) {
+                var child = 2 * i + 1
+                if (child >= size) break
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++
+                if (heap[child] >= last) break
+                heap[i] = heap[child]
+                i = child
+            }
+            heap[i] = last
+            return result
+        }
+    }
+
+    private companion object {
+        const val REMOVED = -1
+    }
+}
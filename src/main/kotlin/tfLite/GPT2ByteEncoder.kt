@@ -0,0 +1,48 @@
+package tfLite
+
+import dynamic.type.inferences.model.runner.tokenizer.BpeMergeTable
+
+/**
+ * Byte encoder that writes symbols of [BpeMergeTable] directly into int buffer.
+ *
+ * Symbol of byte b has id b, so the encoder is just an array of symbols for every code point below 256.
+ * The previous implementation applied GPT2 byte encoder to code points (not to UTF-8 bytes),
+ * and all code points above 255 were turned into "null" string. The model works with such tokens, so it is kept.
+ */
+internal object GPT2ByteEncoder {
+
+    private val symbolsOfCodePoints = IntArray(BpeMergeTable.BYTE_SYMBOLS) { it }
+    private val unknownCodePointSymbols = "null".map { it.toInt() }.toIntArray()
+
+    /**
+     * Maximum number of symbols that can be produced from [length] chars
+     */
+    fun maxSymbols(length: Int) = length * unknownCodePointSymbols.size
+
+    /**
+     * Number of symbols written for [codePoint]
+     */
+    fun symbolsCount(codePoint: Int) =
+        if (codePoint < symbolsOfCodePoints.size) 1 else unknownCodePointSymbols.size
+
+    /**
+     * Encodes text[start, end) into [buffer] that has at least [maxSymbols] places.
+     *
+     * @return number of written symbols
+     */
+    fun encode(text: CharSequence, start: Int, end: Int, buffer: IntArray): Int {
+        var count = 0
+        var position = start
+        while (position < end) {
+            val codePoint = Character.codePointAt(text, position)
+            if (codePoint < symbolsOfCodePoints.size) {
+                buffer[count++] = symbolsOfCodePoints[codePoint]
+            } else {
+                unknownCodePointSymbols.copyInto(buffer, count)
+                count += unknownCodePointSymbols.size
+            }
+            position += Character.charCount(codePoint)
+        }
+        return count
+    }
+}
@@ -0,0 +1,78 @@
+package tfLite
+
+/**
+ * Splits text into pre-tokens exactly as the regular expression of GPT2 tokenizer does
+ * (with Java semantics of its classes: \s is only ASCII whitespace, \p{L} and \p{N} are Unicode):
+ *
+ *     's|'t|'re|'ve|'m|'ll|'d| ?\p{L}+| ?\p{N}+| ?[^\s\p{L}\p{N}]+|\s+(?!\S)|\s+
+ *
+ * The split is done by a hand-written state machine over code points, so nothing is allocated.
+ */
+internal object GPT2PreTokenizer {
+
+    private const val LETTER = 0
+    private const val NUMBER = 1
+    private const val OTHER = 2
+    private const val WHITESPACE = 3
+
+    /**
+     * @return end (exclusive) of the pre-token that starts at [start]
+     */
+    fun nextEnd(text: CharSequence, start: Int): Int {
+        val length = text.length
+        val first = text[start]
+
+//        's|'t|'re|'ve|'m|'ll|'d
+        if (first == '\'' && start + 1 < length) {
+            val end = contractionEnd(text, start)
+            if (end != -1) return end
+        }
+
+//        ' ?\p{L}+| ?\p{N}+| ?[^\s\p{L}\p{N}]+' - optional space is only a space itself
+        var position = start
+        if (first == ' ' && start + 1 < length && classOf(Character.codePointAt(text, start + 1)) != WHITESPACE) {
+            position = start + 1
+        }
+        val type = classOf(Character.codePointAt(text, position))
+        if (type != WHITESPACE) {
+            return runEnd(text, position, type)
+        }
+
+//        '\s+(?!\S)|\s+' - the whole run at the end of text, otherwise the last whitespace is left
+//        for the next token (when the run is longer than one symbol)
+        val end = runEnd(text, start, WHITESPACE)
+        return if (end == length || end - start == 1) end else end - 1
+    }
+
+    private fun contractionEnd(text: CharSequence, start: Int): Int {
+        return when (text[start + 1]) {
+            's', 't', 'm', 'd' -> start + 2
+            'r', 'v' -> if (start + 2 < text.length && text[start + 2] == 'e') start + 3 else -1
+            'l' -> if (start + 2 < text.length && text[start + 2] == 'l') start + 3 else -1
+            else -> -1
+        }
+    }
+
+    private fun runEnd(text: CharSequence, start: Int, type: Int): Int {
+        var position = start
+        while (position < text.length) {
+            val codePoint = Character.codePointAt(text, position)
+            if (classOf(codePoint) != type) break
+            position += Character.charCount(codePoint)
+        }
+        return position
+    }
+
+    private fun classOf(codePoint: Int): Int {
+        return when (Character.getType(codePoint).toByte()) {
+            Character.UPPERCASE_LETTER, Character.LOWERCASE_LETTER, Character.TITLECASE_LETTER,
+            Character.MODIFIER_LETTER, Character.OTHER_LETTER -> LETTER
+            Character.DECIMAL_DIGIT_NUMBER, Character.LETTER_NUMBER, Character.OTHER_NUMBER -> NUMBER
+            else -> if (isWhitespace(codePoint)) WHITESPACE else OTHER
+        }
+    }
+
+    private fun isWhitespace(codePoint: Int): Boolean {
+        return codePoint == ' '.toInt() || codePoint in '\t'.toInt()..'\r'.toInt()
+    }
+}
@@ -1,75 +1,98 @@
 package tfLite
 
+import dynamic.type.inferences.cache.BoundedConcurrentCache
+import dynamic.type.inferences.model.runner.tokenizer.BpeMergeTable
+
 // Code below is taken and adapted from:
 // https://github.com/huggingface/tflite-android-transformers/blob/master/gpt2/src/main/java/co/huggingface/android_transformers/gpt2/tokenization/GPT2Tokenizer.kt
 
+// Merged symbols of pre-tokens are cached: the same words ("self", " return", parameter names)
+// occur in almost every function. One tokenizer with its cache is shared by the whole plugin.
 class GPT2Tokenizer(
-    private val bpeRanks: Map<Pair<String, String>, Int>
+    private val bpeRanks: BpeMergeTable,
+    val bpeCache: BoundedConcurrentCache<String, IntArray>
 ) {
-    private val encodeRegex = Regex("""'s|'t|'re|'ve|'m|'ll|'d| ?\p{L}+| ?\p{N}+| ?[^\s\p{L}\p{N}]+|\s+(?!\S)|\s+""")
+    private val bpeEngine = GPT2BpeEngine(bpeRanks)
+    private val symbolsBuffer = ThreadLocal.withInitial { IntArray(INITIAL_BUFFER_SIZE) }
 
     fun encode(text: String): MutableList<String> {
-        val tokens = encodeRegex.findAll(text).map { result ->
-            result.value.codePoints()
-                .boxed()
-                .map { byteEncoder[it] }
-                .toArray()
-                .joinToString("")
-        }
-
-        return tokens
-            .map { bpe(it) }
-            .flatten()
-            .toMutableList()
+        return encodeSymbols(text).symbols.mapTo(mutableListOf()) { bpeRanks.getSymbol(it) }
     }
 
-    private fun bpe(token: String): List<String> {
-        if (token.length <= 1) return listOf(token)
-
-        var word = token.map { it.toString() }
-        var pairs = getPairs(word)
-
-        while (true) {
-            if (!pairs.any { bpeRanks.containsKey(it) }) break
-            val (first, second) = pairs.minByOrNull { bpeRanks.getOrDefault(it, Int.MAX_VALUE) } ?: break
-
-            var i = 0
-            val newWord = mutableListOf<String>()
-            while (i < word.size) {
-                val j = word.withIndex().indexOfFirst { it.index >= i && it.value == first }
-                if (j != -1) {
-                    newWord.addAll(word.subList(i, j))
-                    i = j
-                } else {
-                    newWord.addAll(word.subList(i, word.size))
-                    break
-                }
-
-                if (word[i] == first && i < word.size - 1 && word[i + 1] == second) {
-                    newWord.add(first + second)
-                    i += 2
-                } else {
-                    newWord.add(word[i])
-                    i += 1
-                }
+    /**
+     * The same as [encode], but tokens are returned as ids of [BpeMergeTable] symbols
+     * together with their positions in [text]
+     */
+    fun encodeSymbols(text: String): GPT2Tokens {
+        val initialSize = text.length / 2 + 1
+        var symbols = IntArray(initialSize)
+        var starts = IntArray(initialSize)
+        var ends = IntArray(initialSize)
+        var count = 0
+        var start = 0
+        while (start < text.length) {
+            val end = GPT2PreTokenizer.nextEnd(text, start)
+            val merged = bpe(text, start, end)
+            if (count + merged.size > symbols.size) {
+                val size = maxOf(symbols.size * 2, count + merged.size)
+                symbols = symbols.copyOf(size)
+                starts = starts.copyOf(size)
+                ends = ends.copyOf(size)
             }
+            merged.copyInto(symbols, count)
+            locate(text, start, merged, starts, ends, count)
+            count += merged.size
+            start = end
+        }
+        return GPT2Tokens(symbols.copyOf(count), starts.copyOf(count), ends.copyOf(count))
+    }
 
-            word = newWord
-            if (word.size == 1) {
-                break
-            } else {
-                pairs = getPairs(word)
+    /**
+     * Writes positions of merged symbols of the pre-token starting at [start].
+     * Every symbol consists of getSymbol(symbol).length byte symbols,
+     * and every code point of text is encoded with [GPT2ByteEncoder.symbolsCount] byte symbols.
+     */
+    private fun locate(text: String, start: Int, merged: IntArray, starts: IntArray, ends: IntArray, offset: Int) {
+        var position = start
+        var codePointStart = start
+        var codePointEnd = start
+//        Byte symbols of the current code point that are not taken by previous tokens
+        var pending = 0
+        for (i in merged.indices) {
+            starts[offset + i] = if (pending > 0) codePointStart else position
+            var length = bpeRanks.getSymbol(merged[i]).length
+            while (length > 0) {
+                if (pending == 0) {
+                    val codePoint = text.codePointAt(position)
+                    codePointStart = position
+                    codePointEnd = position + Character.charCount(codePoint)
+                    pending = GPT2ByteEncoder.symbolsCount(codePoint)
+                    position = codePointEnd
+                }
+                val taken = minOf(length, pending)
+                length -= taken
+                pending -= taken
             }
+            ends[offset + i] = codePointEnd
         }
+    }
 
-        return word
+    private fun bpe(text: String, start: Int, end: Int): IntArray {
+        return bpeCache.computeIfAbsent(text.substring(start, end)) { mergeSymbols(it) }
     }
 
-    private fun getPairs(word: List<String>): Set<Pair<String, String>> {
-        return mutableSetOf<Pair<String, String>>().apply {
-            for (i in 0 until word.size - 1) {
-                add(word[i] to word[i + 1])
-            }
+    private fun mergeSymbols(preToken: String): IntArray {
+        var symbols = symbolsBuffer.get()
+        if (symbols.size < GPT2ByteEncoder.maxSymbols(preToken.length)) {
+            symbols = IntArray(GPT2ByteEncoder.maxSymbols(preToken.length))
+            symbolsBuffer.set(symbols)
         }
+        val length = GPT2ByteEncoder.encode(preToken, 0, preToken.length, symbols)
+        val count = bpeEngine.bpe(symbols, length)
+        return symbols.copyOf(count)
+    }
+
+    private companion object {
+        const val INITIAL_BUFFER_SIZE = 1024
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+package tfLite
+
+/**
+ * Result of [GPT2Tokenizer.encodeSymbols]: ids of [dynamic.type.inferences.model.runner.tokenizer.BpeMergeTable]
+ * symbols and positions of tokens in the original text.
+ *
+ * Token i covers text[starts[i], ends[i]). Tokens of "null" (code points above 255)
+ * may split one code point, then all of them cover this whole code point.
+ */
+class GPT2Tokens(val symbols: IntArray, val starts: IntArray, val ends: IntArray) {
+    val size: Int
+        get() = symbols.size
+}
@@ -0,0 +1,102 @@
+package dynamic.type.inferences.model.translator
+
+import dynamic.type.inferences.model.runner.TorchBert
+import dynamic.type.inferences.model.runner.tokenizer.ModelBertFullTokenizer
+import org.junit.Test
+import kotlin.test.assertEquals
+
+/**
+ * Function must get the same model input alone ([BertTranslator.encode]) and in any batch
+ * ([BertBatchTranslator.encode]): its row is the same, and the tail that pads it to the longest row
+ * is not attended. Then batched and single predictions of the function are equal.
+ */
+class BertBatchTranslatorTest {
+
+    private val tokenizer = ModelBertFullTokenizer(TorchBert.loadVocabulary())
+    private val translator = BertTranslator(tokenizer)
+    private val batchTranslator = BertBatchTranslator(tokenizer)
+
+    private val functions = listOf(
+        function("def clamp(value, low, high):\n    return max(low, min(value, high))"),
+        function("def nothing():\n    pass"),
+        function("def chunks(sequence, size):\n    for start in range(0, len(sequence), size):\n" +
+                "        yield sequence[start:start + size]"),
+//        Longer than BERT limitation, so other functions are padded to its length in a batch
+        function("def count(a, b=1):\n" + "    a = a + b\n".repeat(LONG_FUNCTION_LINES) + "    return a")
+    )
+
+    @Test
+    fun testBatchRowsAreEqualToSingleInputs() {
+        val batches = listOf(
+            functions,
+            functions.reversed(),
+            listOf(functions[0], functions[0]),
+            listOf(functions[1], functions[3]),
+            listOf(functions[3], functions[2], functions[0])
+        ) + functions.map { listOf(it) }
+        for (batch in batches) {
+            val encoded = batchTranslator.encode(batch)
+            assertEquals(batch.size, encoded.functionsCount)
+            batch.forEachIndexed { row, input -> assertSameRow(translator.encode(input), encoded, row, input) }
+        }
+    }
+
+    private fun assertSameRow(single: EncodedBatch, batch: EncodedBatch, row: Int, input: FunctionInput) {
+        val name = "Row $row of ${input.functionName}"
+        val offset = row * batch.length
+        val length = single.length
+        assertEquals(single.ids.toList(), batch.ids.copyOfRange(offset, offset + length).toList(), "$name: ids")
+        assertEquals(
+            single.attentionMask.toList(),
+            batch.attentionMask.copyOfRange(offset, offset + length).toList(),
+            "$name: attention mask"
+        )
+        assertEquals(
+            single.idMask.toList(),
+            batch.idMask.copyOfRange(offset, offset + length).toList(),
+            "$name: parameters mask"
+        )
+        assertEquals(single.rowsPerFunction[0], batch.rowsPerFunction[row], "$name: rows")
+
+        val tail = batch.length - length
+        assertEquals(
+            List(tail) { tokenizer.padId },
+            batch.ids.copyOfRange(offset + length, offset + batch.length).toList(),
+            "$name: ids of tail"
+        )
+        assertEquals(
+            List(tail) { 0L },
+            batch.attentionMask.copyOfRange(offset + length, offset + batch.length).toList(),
+            "$name: attention mask of tail"
+        )
+        assertEquals(
+            List(tail) { false },
+            batch.idMask.copyOfRange(offset + length, offset + batch.length).toList(),
+            "$name: parameters mask of tail"
+        )
+    }
+
+    /**
+     * Function with parameters taken from its header, as PSI gives them
+     */
+    private fun function(code: String): FunctionInput {
+        val open = code.indexOf('(')
+        val close = code.indexOf(')')
+        val names = mutableListOf<String>()
+        val starts = mutableListOf<Int>()
+        var position = open + 1
+        for (part in code.substring(open + 1, close).split(',')) {
+            val name = part.substringBefore('=').trim()
+            if (name.isNotEmpty()) {
+                names.add(name)
+                starts.add(code.indexOf(name, position))
+            }
+            position += part.length + 1
+        }
+        return FunctionInput(code, names, starts.toIntArray(), code.substring("def ".length, open))
+    }
+
+    private companion object {
+        const val LONG_FUNCTION_LINES = 120
+    }
+}
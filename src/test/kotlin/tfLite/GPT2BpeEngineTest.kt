@@ -0,0 +1,104 @@
+package tfLite
+
+import org.junit.Test
+import kotlin.random.Random
+import kotlin.test.assertEquals
+
+/**
+ * [GPT2BpeEngine] must merge exactly the same symbols as the previous string-based loop
+ * ([GPT2TestData.legacyBpe]), otherwise the model gets other tokens than it was trained on.
+ * Words are given as bytes (chars below 256), so symbol of each char is its code.
+ */
+class GPT2BpeEngineTest {
+
+    private val table = GPT2TestData.table
+    private val engine = GPT2BpeEngine(table)
+
+    @Test
+    fun testLongIdentifiers() {
+        listOf(
+            "get_default_configuration_for_current_user",
+            " some_really_long_identifier_name_with_many_underscores_inside",
+            "getHTTPResponseCodeFromServerAfterRetries",
+            "__init__",
+            "___private_name___",
+            " self",
+            " camelCaseVariableName",
+            "SCREAMING_SNAKE_CASE_CONSTANT",
+            "x".repeat(LONG_WORD_LENGTH)
+        ).forEach { assertSameMerges(it) }
+    }
+
+    @Test
+    fun testStringLiterals() {
+        listOf(
+            "\"Unexpected version: %s\"",
+            "'utf-8'",
+            "\"\\n\".join(lines)",
+            "f\"{name!r:>10}\"",
+            "r'^[A-Za-z_][A-Za-z0-9_]*$'",
+            "\"\"\"Docstring of function with several words.\"\"\"",
+            "b'\\x00\\xff'"
+        ).forEach { assertSameMerges(it) }
+    }
+
+    @Test
+    fun testRepeatedPairs() {
+        for (count in 1..64) {
+            listOf("a", "ab", "aab", "=", "-", " ", "0", "\n", "_").forEach {
+                assertSameMerges(it.repeat(count))
+            }
+        }
+    }
+
+    @Test
+    fun testWordsWithoutMerges() {
+        listOf("", "x", "\u0000\u0001\u0002\u0003", "\u007f\u00ad\u007f", "\u0010\u0011")
+            .forEach { word ->
+                assertSameMerges(word)
+                assertEquals(word.map { table.getSymbol(it.toInt()) }, engineBpe(word), "Merges of \"$word\"")
+            }
+    }
+
+    @Test
+    fun testRandomWords() {
+        val random = Random(SEED)
+        val alphabets = listOf(
+            "abcdefghijklmnopqrstuvwxyz",
+            "etaoin shrdlu_",
+            "0123456789.,()[]{}:=+-*/'\" \n\t",
+            (0 until 256).map { it.toChar() }.joinToString("")
+        )
+        repeat(RANDOM_WORDS) {
+            val alphabet = alphabets[random.nextInt(alphabets.size)]
+            val word = CharArray(random.nextInt(MAX_RANDOM_LENGTH)) { alphabet[random.nextInt(alphabet.length)] }
+            assertSameMerges(String(word))
+        }
+    }
+
+    private fun assertSameMerges(word: String) {
+        val expected = GPT2TestData.legacyBpe(word.map { table.getSymbol(it.toInt()) }.joinToString(""))
+//        Empty word is never a pre-token, the previous loop returned it as the only symbol
+        if (word.isEmpty()) {
+            assertEquals(emptyList(), engineBpe(word))
+            return
+        }
+        assertEquals(expected, engineBpe(word), "Merges of \"$word\"")
+        assertEquals(expected.map { GPT2TestData.symbolIds.getValue(it) }, engineIds(word), "Ids of \"$word\"")
+    }
+
+    private fun engineBpe(word: String): List<String> = engineIds(word).map { table.getSymbol(it) }
+
+    private fun engineIds(word: String): List<Int> {
+        val symbols = IntArray(word.length) { word[it].toInt() }
+        val count = engine.bpe(symbols, symbols.size)
+        return symbols.take(count)
+    }
+
+    private companion object {
+        const val SEED = 20210401
+        const val RANDOM_WORDS = 5000
+        const val MAX_RANDOM_LENGTH = 48
+        const val LONG_WORD_LENGTH = 512
+    }
+}
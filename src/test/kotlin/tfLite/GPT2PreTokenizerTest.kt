@@ -0,0 +1,128 @@
+package tfLite
+
+import dynamic.type.inferences.cache.BoundedConcurrentCache
+import org.junit.Test
+import kotlin.random.Random
+import kotlin.test.assertEquals
+
+/**
+ * [GPT2PreTokenizer] and [GPT2ByteEncoder] must split and encode text exactly as encodeRegex
+ * and byte encoder of the previous tokenizer did. Whole [GPT2Tokenizer] is checked too,
+ * so token ids given to the model are the same as before.
+ */
+class GPT2PreTokenizerTest {
+
+    private val table = GPT2TestData.table
+    private val tokenizer = GPT2Tokenizer(table, BoundedConcurrentCache(CACHE_SIZE))
+    private val encodeRegex = Regex("""'s|'t|'re|'ve|'m|'ll|'d| ?\p{L}+| ?\p{N}+| ?[^\s\p{L}\p{N}]+|\s+(?!\S)|\s+""")
+
+    @Test
+    fun testCorpus() {
+        val corpus = GPT2PreTokenizerTest::class.java.getResource(CORPUS)?.readText()
+            ?: error("$CORPUS is not found in test resources")
+        assertSameTokens(corpus)
+        corpus.lines().forEach { assertSameTokens(it) }
+    }
+
+    @Test
+    fun testContractions() {
+        listOf(
+            "it's", "don't", "we're", "I've", "I'm", "you'll", "he'd",
+            "'s't're've'm'll'd", "'", "''", "'r", "'re'", "'l", "'ll'l", "'S", "'LL", " 's", "x = 'd'", "'''doc'''"
+        ).forEach { assertSameTokens(it) }
+    }
+
+    @Test
+    fun testWhitespaceRuns() {
+        listOf(
+            "a  b", "a\t\t\nb", "   ", " ", "a   ", "   a", "\n\n    return x", "x \n", " \u000b\u000c\r",
+            "a\u00a0\u00a0b", "a \u2003 b", "if x:\n\tpass\n\n", "a  ,  b", " 1  2"
+        ).forEach { assertSameTokens(it) }
+    }
+
+    @Test
+    fun testCodePointsAbove255() {
+        listOf(
+            "名前 = 'значение'", "ĀāĂ", "x\u0100y", "λ x: x", " Ω1", "١٢٣ + 4", "Ⅻ", "e\u0301", "€100", "a\u2028b"
+        ).forEach { assertSameTokens(it) }
+    }
+
+    @Test
+    fun testSurrogates() {
+        listOf(
+            "x = '\uD83D\uDE00'", "\uD835\uDD18\uD835\uDD2B\uD835\uDD26 identifier", " \uD83D\uDE00\uD83D\uDE00",
+            "\uD83D abc", "abc\uDE00", "\uDE00\uD83D", "\uD83D", " \uD83D", "'\uD83D'", "\uD800\uDC00\uD800"
+        ).forEach { assertSameTokens(it) }
+    }
+
+    @Test
+    fun testRandomStrings() {
+        val random = Random(SEED)
+        val symbols = listOf(
+            "abcxyzABCXYZ_", "0123456789", " ", "\t\n\r\u000b\u000c", "'", "sdtmrvel", ".,:()[]{}=+-*/\"#",
+            "\u00a0\u00e9\u00ff\u00b5", "\u0100Ωж名\u2003\u0301١Ⅻ", "\uD83D\uDE00", "\uD83D", "\uDE00"
+        )
+        repeat(RANDOM_STRINGS) {
+            val text = StringBuilder()
+            repeat(random.nextInt(MAX_RANDOM_PARTS)) {
+                val group = symbols[random.nextInt(symbols.size)]
+//                Surrogate pair is taken as a whole, single surrogates are in their own groups
+                if (group.length == 2 && Character.isSurrogatePair(group[0], group[1])) text.append(group)
+                else text.append(group[random.nextInt(group.length)])
+            }
+            assertSameTokens(text.toString())
+        }
+    }
+
+    private fun assertSameTokens(text: String) {
+        val expectedPreTokens = encodeRegex.findAll(text).map { it.value }.toList()
+        assertEquals(expectedPreTokens, preTokens(text), "Pre-tokens of \"$text\"")
+
+        val expectedEncoded = expectedPreTokens.map { legacyByteEncode(it) }
+        assertEquals(expectedEncoded, expectedPreTokens.map { byteEncode(it) }, "Byte symbols of \"$text\"")
+
+        val expectedTokens = expectedEncoded.flatMap { GPT2TestData.legacyBpe(it) }
+        assertEquals(expectedTokens, tokenizer.encode(text), "Tokens of \"$text\"")
+        assertEquals(
+            expectedTokens.map { GPT2TestData.symbolIds.getValue(it) },
+            tokenizer.encodeSymbols(text).symbols.toList(),
+            "Token ids of \"$text\""
+        )
+    }
+
+    private fun preTokens(text: String): List<String> {
+        val result = mutableListOf<String>()
+        var start = 0
+        while (start < text.length) {
+            val end = GPT2PreTokenizer.nextEnd(text, start)
+            result.add(text.substring(start, end))
+            start = end
+        }
+        return result
+    }
+
+    private fun byteEncode(preToken: String): String {
+        val buffer = IntArray(GPT2ByteEncoder.maxSymbols(preToken.length))
+        val count = GPT2ByteEncoder.encode(preToken, 0, preToken.length, buffer)
+        return (0 until count).joinToString("") { table.getSymbol(buffer[it]) }
+    }
+
+    /**
+     * Code points above 255 are not in byte encoder, so they became "null"
+     */
+    private fun legacyByteEncode(preToken: String): String {
+        return preToken.codePoints()
+            .boxed()
+            .map { legacyByteEncoder[it] }
+            .toArray()
+            .joinToString("")
+    }
+
+    private companion object {
+        const val CORPUS = "/corpus/functions.py"
+        const val CACHE_SIZE = 1024
+        const val SEED = 20210401
+        const val RANDOM_STRINGS = 5000
+        const val MAX_RANDOM_PARTS = 40
+    }
+}
@@ -0,0 +1,91 @@
+package tfLite
+
+import dynamic.type.inferences.model.runner.tokenizer.BpeMergeTable
+import java.nio.file.Files
+
+/**
+ * Merges for tokenizer tests: the compiled table that is used by the plugin
+ * and ranks of string pairs read from gpt2Merges.txt, as the previous tokenizer read them.
+ */
+internal object GPT2TestData {
+
+    val table: BpeMergeTable by lazy {
+        val url = GPT2TestData::class.java.getResource("/data/torchBERT/gpt2Merges.bin")
+            ?: error("gpt2Merges.bin is not found, it is generated by compileBpeMerges task")
+        BpeMergeTable.load(url, Files.createTempDirectory("VaDima").resolve("gpt2Merges.bin"))
+    }
+
+    val ranks: Map<Pair<String, String>, Int> by lazy {
+        val url = GPT2TestData::class.java.getResource("/data/torchBERT/gpt2Merges.txt")
+            ?: error("gpt2Merges.txt is not found")
+        url.openStream().bufferedReader().useLines { lines ->
+            lines.withIndex().associate { (rank, line) ->
+                val values = line.split(" ")
+                Pair(values[0], values[1]) to rank
+            }
+        }
+    }
+
+    /**
+     * Ids of table symbols by their strings. Every merge produces a new string, so ids are unique
+     */
+    val symbolIds: Map<String, Int> by lazy {
+        (0 until table.symbolsCount).associateBy { table.getSymbol(it) }
+    }
+
+    /**
+     * Merge loop of the previous tokenizer over strings, where
+     *
+     * @param token is a pre-token encoded with GPT2 byte encoder
+     * @return merged symbols
+     */
+    fun legacyBpe(token: String): List<String> {
+        if (token.length <= 1) return listOf(token)
+
+        var word = token.map { it.toString() }
+        var pairs = getPairs(word)
+
+        while (true) {
+            if (!pairs.any { ranks.containsKey(it) }) break
+            val (first, second) = pairs.minByOrNull { ranks.getOrDefault(it, Int.MAX_VALUE) } ?: break
+
+            var i = 0
+            val newWord = mutableListOf<String>()
+            while (i < word.size) {
+                val j = word.withIndex().indexOfFirst { it.index >= i && it.value == first }
+                if (j != -1) {
+                    newWord.addAll(word.subList(i, j))
+                    i = j
+                } else {
+                    newWord.addAll(word.subList(i, word.size))
+                    break
+                }
+
+                if (word[i] == first && i < word.size - 1 && word[i + 1] == second) {
+                    newWord.add(first + second)
+                    i += 2
+                } else {
+                    newWord.add(word[i])
+                    i += 1
+                }
+            }
+
+            word = newWord
+            if (word.size == 1) {
+                break
+            } else {
+                pairs = getPairs(word)
+            }
+        }
+
+        return word
+    }
+
+    private fun getPairs(word: List<String>): Set<Pair<String, String>> {
+        return mutableSetOf<Pair<String, String>>().apply {
+            for (i in 0 until word.size - 1) {
+                add(word[i] to word[i + 1])
+            }
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package tfLite
 
-// Code below is taken and adapted from
+// Byte encoder of the previous tokenizer, kept as an oracle for GPT2ByteEncoder. It was taken and adapted from
 // https://github.com/huggingface/tflite-android-transformers/blob/master/gpt2/src/main/java/co/huggingface/android_transformers/gpt2/tokenization/GPT2ByteEncoderDecoder.kt
-internal val byteEncoder: Map<Int, String> by lazy {
+internal val legacyByteEncoder: Map<Int, String> by lazy {
     hashMapOf<Int, String>().apply {
         put(33, "!")
         put(34, "\"")
@@ -261,4 +261,4 @@ internal val byteEncoder: Map<Int, String> by lazy {
         put(160, "\u0142")
         put(173, "\u0143")
     }
-}
\ No newline at end of file
+}
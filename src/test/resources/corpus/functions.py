@@ -0,0 +1,224 @@
+# Corpus of functions for benchmarks of preprocessing and postprocessing.
+# Each top-level function is one input, as if it was taken from PSI: code starts from "def <name>".
+# Functions are of different length, so each length group of benchmarks has several of them.
+
+def clamp(value, low, high):
+    return max(low, min(value, high))
+
+
+def is_palindrome(text):
+    cleaned = [c.lower() for c in text if c.isalnum()]
+    return cleaned == cleaned[::-1]
+
+
+def first_or_default(items, predicate, default=None):
+    for item in items:
+        if predicate(item):
+            return item
+    return default
+
+
+def merge_dicts(base, override):
+    result = dict(base)
+    result.update(override)
+    return result
+
+
+def chunks(sequence, size):
+    for start in range(0, len(sequence), size):
+        yield sequence[start:start + size]
+
+
+def read_lines(path, encoding="utf-8", strip=True):
+    with open(path, encoding=encoding) as file:
+        for line in file:
+            yield line.strip() if strip else line
+
+
+def parse_version(version, separator=".", default_patch=0):
+    parts = version.split(separator)
+    if len(parts) < 2 or len(parts) > 3:
+        raise ValueError("Unexpected version: %s" % version)
+    major, minor = int(parts[0]), int(parts[1])
+    patch = int(parts[2]) if len(parts) == 3 else default_patch
+    return major, minor, patch
+
+
+def flatten(nested, max_depth=None, depth=0):
+    result = []
+    for item in nested:
+        if isinstance(item, (list, tuple)) and (max_depth is None or depth < max_depth):
+            result.extend(flatten(item, max_depth, depth + 1))
+        else:
+            result.append(item)
+    return result
+
+
+def load_config(path, defaults=None, required=()):
+    import json
+    with open(path) as file:
+        config = json.load(file)
+    merged = dict(defaults or {})
+    merged.update(config)
+    missing = [key for key in required if key not in merged]
+    if missing:
+        raise KeyError("Missing keys: " + ", ".join(missing))
+    return merged
+
+
+def slugify(title, separator="-", max_length=50):
+    allowed = []
+    for char in title.lower():
+        if char.isalnum():
+            allowed.append(char)
+        elif allowed and allowed[-1] != separator:
+            allowed.append(separator)
+    slug = "".join(allowed).strip(separator)
+    return slug[:max_length].rstrip(separator)
+
+
+def group_by(items, key, value=None):
+    groups = {}
+    for item in items:
+        group = groups.setdefault(key(item), [])
+        group.append(value(item) if value is not None else item)
+    return groups
+
+
+def word_frequencies(text, stop_words=None, min_length=2):
+    stop_words = set(stop_words or ())
+    frequencies = {}
+    for word in text.lower().split():
+        word = word.strip(".,;:!?\"'()[]")
+        if len(word) < min_length or word in stop_words:
+            continue
+        frequencies[word] = frequencies.get(word, 0) + 1
+    return sorted(frequencies.items(), key=lambda item: (-item[1], item[0]))
+
+
+def retry(operation, attempts=3, delay=0.5, backoff=2.0, exceptions=(IOError,)):
+    import time
+    last_error = None
+    for attempt in range(attempts):
+        try:
+            return operation()
+        except exceptions as error:
+            last_error = error
+            time.sleep(delay * backoff ** attempt)
+    raise RuntimeError("Operation failed after %d attempts" % attempts) from last_error
+
+
+def moving_average(values, window, *, skip_none=True):
+    if window <= 0:
+        raise ValueError("window should be positive")
+    result = []
+    total = 0.0
+    queue = []
+    for value in values:
+        if value is None and skip_none:
+            continue
+        queue.append(value)
+        total += value
+        if len(queue) > window:
+            total -= queue.pop(0)
+        result.append(total / len(queue))
+    return result
+
+
+def format_table(rows, headers, padding=1, align_right=()):
+    widths = [len(header) for header in headers]
+    for row in rows:
+        for i, cell in enumerate(row):
+            widths[i] = max(widths[i], len(str(cell)))
+    space = " " * padding
+    lines = [space.join(header.ljust(widths[i]) for i, header in enumerate(headers))]
+    lines.append(space.join("-" * width for width in widths))
+    for row in rows:
+        cells = []
+        for i, cell in enumerate(row):
+            text = str(cell)
+            cells.append(text.rjust(widths[i]) if i in align_right else text.ljust(widths[i]))
+        lines.append(space.join(cells))
+    return "\n".join(lines)
+
+
+def send_request(session, method, url, params=None, json_body=None, headers=None, timeout=10.0, retries=2):
+    headers = dict(headers or {})
+    headers.setdefault("Accept", "application/json")
+    for attempt in range(retries + 1):
+        try:
+            response = session.request(method, url, params=params, json=json_body,
+                                       headers=headers, timeout=timeout)
+        except ConnectionError:
+            if attempt == retries:
+                raise
+            continue
+        if response.status_code >= 500 and attempt < retries:
+            continue
+        response.raise_for_status()
+        if response.headers.get("Content-Type", "").startswith("application/json"):
+            return response.json()
+        return response.text
+    return None
+
+
+def train_epoch(model, loader, optimizer, loss_function, device, clip_norm=None, log_every=100):
+    model.train()
+    total_loss = 0.0
+    correct = 0
+    seen = 0
+    for step, (inputs, targets) in enumerate(loader):
+        inputs, targets = inputs.to(device), targets.to(device)
+        optimizer.zero_grad()
+        outputs = model(inputs)
+        loss = loss_function(outputs, targets)
+        loss.backward()
+        if clip_norm is not None:
+            for parameter in model.parameters():
+                if parameter.grad is not None:
+                    parameter.grad.data.clamp_(-clip_norm, clip_norm)
+        optimizer.step()
+        total_loss += loss.item() * inputs.size(0)
+        correct += (outputs.argmax(dim=1) == targets).sum().item()
+        seen += inputs.size(0)
+        if log_every and step % log_every == 0:
+            print("step %d: loss %.4f, accuracy %.3f" % (step, total_loss / seen, correct / seen))
+    return total_loss / max(seen, 1), correct / max(seen, 1)
+
+
+def build_index(documents, tokenizer, lowercase=True, stop_words=frozenset(), min_document_frequency=1):
+    index = {}
+    document_frequencies = {}
+    for document_id, document in enumerate(documents):
+        text = document.lower() if lowercase else document
+        positions = {}
+        for position, token in enumerate(tokenizer(text)):
+            if token in stop_words:
+                continue
+            positions.setdefault(token, []).append(position)
+        for token, token_positions in positions.items():
+            index.setdefault(token, {})[document_id] = token_positions
+            document_frequencies[token] = document_frequencies.get(token, 0) + 1
+    for token, frequency in list(document_frequencies.items()):
+        if frequency < min_document_frequency:
+            del index[token]
+            del document_frequencies[token]
+    return index, document_frequencies
+
+
+def resample_series(timestamps, values, interval, aggregate=sum, fill_value=None, start=None, end=None):
+    if len(timestamps) != len(values):
+        raise ValueError("timestamps and values should have the same length")
+    if not timestamps:
+        return [], []
+    start = timestamps[0] if start is None else start
+    end = timestamps[-1] if end is None else end
+    buckets_count = int((end - start) // interval) + 1
+    buckets = [[] for _ in range(buckets_count)]
+    for timestamp, value in zip(timestamps, values):
+        if timestamp < start or timestamp > end:
+            continue
+        buckets[int((timestamp - start) // interval)].append(value)
+    result_times = [start + i * interval for i in range(buckets_count)]
+    result_values = [aggregate(bucket) if bucket else fill_value for bucket in buckets]
+    return result_times, result_values